@@ -0,0 +1,85 @@
+package com.treasurehunt;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmarks the bit-parallel flood fill and BFS against a cell-by-cell BFS on large random maps.
+ */
+public class BitboardBenchmark {
+    private static final int[] MAP_SIZES = {256, 1024, 2048};
+    private static final double WALL_DENSITY = 0.25;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        Random rand = new Random(42);
+        System.out.printf("%8s %16s %16s %16s %16s%n",
+                "size", "cell BFS ms", "bit fill ms", "bit layers ms", "reachable cells");
+
+        for (int size : MAP_SIZES) {
+            int[][] map = new int[size][size];
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    map[x][y] = rand.nextDouble() < WALL_DENSITY ? 1 : 0;
+                }
+            }
+            map[0][0] = 0;
+            BitboardGrid grid = BitboardGrid.fromMap(map);
+
+            // Warm up every variant once before timing
+            int cells = cellBfs(map);
+            BitboardGrid.count(grid.reachable(0, 0));
+            grid.distances(0, 0);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                cellBfs(map);
+            }
+            double cellMillis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                grid.reachable(0, 0);
+            }
+            double fillMillis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                grid.distances(0, 0);
+            }
+            double layerMillis = (System.nanoTime() - start) / 1e6 / RUNS;
+
+            System.out.printf("%8d %16.2f %16.2f %16.2f %16d%n", size, cellMillis, fillMillis, layerMillis, cells);
+        }
+    }
+
+    // Baseline distance field BFS over primitive arrays, one cell at a time
+    private static int cellBfs(int[][] map) {
+        int width = map.length;
+        int height = map[0].length;
+        int[] dist = new int[width * height];
+        Arrays.fill(dist, -1);
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        dist[0] = 0;
+
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (int[] dir : directions) {
+                int nx = x + dir[0];
+                int ny = y + dir[1];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height
+                        && map[nx][ny] != 1 && dist[ny * width + nx] < 0) {
+                    dist[ny * width + nx] = dist[cell] + 1;
+                    queue[tail++] = ny * width + nx;
+                }
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,137 @@
+package com.treasurehunt;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the player's line of sight for the Treasure Hunt game.
+ * Uses recursive shadowcasting over the wall grid to reveal every cell within a radius,
+ * remembering what has already been revealed so each move only reports the newly seen cells.
+ */
+public class FieldOfView {
+    // Multipliers that map the first octant onto each of the eight octants (xx, xy, yx, yy)
+    private static final int[][] OCTANTS = {
+            {1, 0, 0, 1}, {0, 1, 1, 0}, {0, -1, 1, 0}, {-1, 0, 0, 1},
+            {-1, 0, 0, -1}, {0, -1, -1, 0}, {0, 1, -1, 0}, {1, 0, 0, -1}
+    };
+
+    private final boolean[][] opaque;
+    private final int width;
+    private final int height;
+    private final int radius;
+    private final int radiusSquared;
+    private final boolean[][] revealed;
+    private final boolean[][] scannedFrom;
+    private List<Point> delta;
+
+    public FieldOfView(boolean[][] opaque, int radius) {
+        this.opaque = opaque;
+        this.width = opaque.length;
+        this.height = opaque[0].length;
+        this.radius = radius;
+        this.radiusSquared = radius * radius;
+        this.revealed = new boolean[width][height];
+        this.scannedFrom = new boolean[width][height];
+    }
+
+    // Builds the opacity plane from the game grid, treating walls as blocking sight
+    public static boolean[][] opacityOf(TreasureHunt.CellType[][] grid) {
+        boolean[][] opaque = new boolean[grid.length][grid[0].length];
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < grid[x].length; y++) {
+                opaque[x][y] = grid[x][y] == TreasureHunt.CellType.WALL;
+            }
+        }
+        return opaque;
+    }
+
+    // Reveals everything in sight of the origin and returns only the cells that were hidden before
+    public List<Point> reveal(int originX, int originY) {
+        // Walls never move, so a cell we have already looked from cannot show anything new
+        if (scannedFrom[originX][originY]) {
+            return new ArrayList<>();
+        }
+        scannedFrom[originX][originY] = true;
+        return scan(originX, originY);
+    }
+
+    // Runs a full shadowcast from the origin without consulting the per-origin cache
+    List<Point> scan(int originX, int originY) {
+        delta = new ArrayList<>();
+        mark(originX, originY);
+        for (int[] octant : OCTANTS) {
+            castLight(originX, originY, 1, 1.0, 0.0, octant[0], octant[1], octant[2], octant[3]);
+        }
+        List<Point> changed = delta;
+        delta = null;
+        return changed;
+    }
+
+    public boolean isRevealed(int x, int y) {
+        return revealed[x][y];
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    // Scans one octant row by row, recursing whenever a run of walls splits the light cone
+    private void castLight(int cx, int cy, int row, double start, double end,
+                           int xx, int xy, int yx, int yy) {
+        if (start < end) {
+            return;
+        }
+        double newStart = 0.0;
+        for (int j = row; j <= radius; j++) {
+            int dx = -j - 1;
+            int dy = -j;
+            boolean blocked = false;
+
+            while (dx <= 0) {
+                dx++;
+                double leftSlope = (dx - 0.5) / (dy + 0.5);
+                double rightSlope = (dx + 0.5) / (dy - 0.5);
+                if (start < rightSlope) {
+                    continue;
+                }
+                if (end > leftSlope) {
+                    break;
+                }
+
+                int x = cx + dx * xx + dy * xy;
+                int y = cy + dx * yx + dy * yy;
+                boolean inBounds = x >= 0 && x < width && y >= 0 && y < height;
+                if (inBounds && dx * dx + dy * dy <= radiusSquared) {
+                    mark(x, y);
+                }
+
+                // Cells outside the map block sight just like walls
+                boolean wall = !inBounds || opaque[x][y];
+                if (blocked) {
+                    if (wall) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (wall && j < radius) {
+                    blocked = true;
+                    castLight(cx, cy, j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) {
+                break;
+            }
+        }
+    }
+
+    // Records a cell as revealed, adding it to the delta the first time it is seen
+    private void mark(int x, int y) {
+        if (!revealed[x][y]) {
+            revealed[x][y] = true;
+            delta.add(new Point(x, y));
+        }
+    }
+}
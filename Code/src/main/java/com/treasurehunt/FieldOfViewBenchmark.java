@@ -0,0 +1,91 @@
+package com.treasurehunt;
+
+import java.util.Random;
+
+/**
+ * Benchmarks the shadowcasting field of view on large random maps.
+ * Compares the incremental reveal used by the game against a full rescan on every move.
+ */
+public class FieldOfViewBenchmark {
+    private static final int[] MAP_SIZES = {256, 1024, 2048};
+    private static final int[] RADII = {8, 32, 64};
+    private static final double WALL_DENSITY = 0.15;
+    private static final int MOVES = 20000;
+
+    public static void main(String[] args) {
+        Random rand = new Random(42);
+        System.out.printf("%8s %6s %16s %16s %12s%n", "size", "radius", "incremental ns", "full scan ns", "cells/move");
+
+        for (int size : MAP_SIZES) {
+            boolean[][] opaque = randomWalls(size, rand);
+            int[][] walk = randomWalk(opaque, rand);
+
+            for (int radius : RADII) {
+                // Warm up once so the JIT has compiled the scan before timing it
+                runIncremental(opaque, radius, walk);
+                runFullScan(opaque, radius, walk);
+
+                long start = System.nanoTime();
+                long revealed = runIncremental(opaque, radius, walk);
+                long incremental = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                runFullScan(opaque, radius, walk);
+                long full = System.nanoTime() - start;
+
+                System.out.printf("%8d %6d %16d %16d %12.2f%n", size, radius,
+                        incremental / MOVES, full / MOVES, (double) revealed / MOVES);
+            }
+        }
+    }
+
+    // Reveals along the walk using the per-origin cache, returning how many cells were emitted
+    private static long runIncremental(boolean[][] opaque, int radius, int[][] walk) {
+        FieldOfView fov = new FieldOfView(opaque, radius);
+        long revealed = 0;
+        for (int[] step : walk) {
+            revealed += fov.reveal(step[0], step[1]).size();
+        }
+        return revealed;
+    }
+
+    // Rescans the whole radius on every move
+    private static void runFullScan(boolean[][] opaque, int radius, int[][] walk) {
+        FieldOfView fov = new FieldOfView(opaque, radius);
+        for (int[] step : walk) {
+            fov.scan(step[0], step[1]);
+        }
+    }
+
+    private static boolean[][] randomWalls(int size, Random rand) {
+        boolean[][] opaque = new boolean[size][size];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                opaque[x][y] = rand.nextDouble() < WALL_DENSITY;
+            }
+        }
+        return opaque;
+    }
+
+    // Random walk over open cells that stays near the centre, so the player revisits cells like in a real game
+    private static int[][] randomWalk(boolean[][] opaque, Random rand) {
+        int size = opaque.length;
+        int x = size / 2;
+        int y = size / 2;
+        opaque[x][y] = false;
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        int[][] walk = new int[MOVES][];
+
+        for (int i = 0; i < MOVES; i++) {
+            int[] dir = directions[rand.nextInt(directions.length)];
+            int newX = x + dir[0];
+            int newY = y + dir[1];
+            if (newX >= 0 && newX < size && newY >= 0 && newY < size && !opaque[newX][newY]) {
+                x = newX;
+                y = newY;
+            }
+            walk[i] = new int[]{x, y};
+        }
+        return walk;
+    }
+}
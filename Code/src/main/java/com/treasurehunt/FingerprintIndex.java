@@ -0,0 +1,111 @@
+package com.treasurehunt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Off-heap open-addressing set of map fingerprints.
+ * Fingerprints live in a direct buffer with linear probing, so the index costs 8 bytes per
+ * slot outside the Java heap and adds nothing for the garbage collector to trace.
+ * Lookups and inserts are O(1) expected; the table doubles once it is half full.
+ * Methods are synchronized so a parallel corpus import can share one index.
+ */
+public class FingerprintIndex {
+    private static final int MIN_CAPACITY = 1024;
+    // Slot value meaning "empty"; a real fingerprint of 0 is stored as this stand-in instead
+    private static final long EMPTY = 0L;
+    private static final long ZERO_STAND_IN = 0x9E3779B97F4A7C15L;
+
+    private LongBuffer slots;
+    private int mask;
+    private int size = 0;
+
+    public FingerprintIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    // Sizes the table so the expected number of maps fits without resizing
+    public FingerprintIndex(int expectedMaps) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedMaps) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    // Adds a fingerprint, returning false if it was already present (a duplicate map)
+    public synchronized boolean add(long fingerprint) {
+        long key = fingerprint == EMPTY ? ZERO_STAND_IN : fingerprint;
+        int slot = slotOf(key);
+        while (true) {
+            long current = slots.get(slot);
+            if (current == EMPTY) {
+                break;
+            }
+            if (current == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots.put(slot, key);
+        size++;
+        if (size * 2 > slots.capacity()) {
+            grow();
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(long fingerprint) {
+        long key = fingerprint == EMPTY ? ZERO_STAND_IN : fingerprint;
+        int slot = slotOf(key);
+        while (true) {
+            long current = slots.get(slot);
+            if (current == EMPTY) {
+                return false;
+            }
+            if (current == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Off-heap bytes held by the table
+    public synchronized long memoryBytes() {
+        return (long) slots.capacity() * Long.BYTES;
+    }
+
+    // Off-heap bytes per million stored maps at the current load factor
+    public synchronized double bytesPerMillionMaps() {
+        return size == 0 ? 0.0 : memoryBytes() * 1_000_000.0 / size;
+    }
+
+    private void allocate(int capacity) {
+        slots = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        mask = capacity - 1;
+    }
+
+    // Doubles the table and reinserts every fingerprint
+    private void grow() {
+        LongBuffer old = slots;
+        allocate(old.capacity() * 2);
+        for (int i = 0; i < old.capacity(); i++) {
+            long key = old.get(i);
+            if (key != EMPTY) {
+                int slot = slotOf(key);
+                while (slots.get(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots.put(slot, key);
+            }
+        }
+    }
+
+    // Zobrist hashes are already uniform, but mixing keeps clustered inputs from probing long runs
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,50 @@
+package com.treasurehunt;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Custom Java Flight Recorder events for the Treasure Hunt game.
+ * Events cost almost nothing unless a recording with them enabled is running,
+ * e.g. java -XX:StartFlightRecording=filename=game.jfr ...
+ */
+public final class GameEvents {
+    private GameEvents() {
+    }
+
+    @Name("com.treasurehunt.Pathfinding")
+    @Label("Pathfinding")
+    @Category("Treasure Hunt")
+    public static class Pathfinding extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Nodes Expanded")
+        int nodesExpanded;
+
+        @Label("Path Length")
+        int pathLength;
+    }
+
+    @Name("com.treasurehunt.MapLoad")
+    @Label("Map Load")
+    @Category("Treasure Hunt")
+    public static class MapLoad extends Event {
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("com.treasurehunt.MapGeneration")
+    @Label("Map Generation")
+    @Category("Treasure Hunt")
+    public static class MapGeneration extends Event {
+    }
+
+    @Name("com.treasurehunt.Frame")
+    @Label("Frame")
+    @Category("Treasure Hunt")
+    public static class Frame extends Event {
+    }
+}
@@ -0,0 +1,102 @@
+package com.treasurehunt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process metrics registry for the Treasure Hunt game.
+ * Holds named counters and latency histograms for the hot paths (pathfinding, map loading,
+ * map generation and painting) and can export them as a periodic snapshot file.
+ * Recording is switched off unless the JVM is started with -Dtreasurehunt.metrics=true,
+ * in which case callers skip even the clock reads.
+ */
+public final class GameMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("treasurehunt.metrics");
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService exporter;
+
+    private GameMetrics() {
+    }
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    // Returns a start timestamp, or 0 when metrics are disabled so no clock is read
+    public static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    // Records the time elapsed since startTimer() into the given histogram
+    public static void stopTimer(LatencyHistogram histogram, long startNanos) {
+        if (ENABLED) {
+            histogram.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public static void add(LongAdder counter, long delta) {
+        if (ENABLED) {
+            counter.add(delta);
+        }
+    }
+
+    // Renders all counters and histograms as sorted "name key=value" lines
+    public static String snapshot() {
+        StringBuilder out = new StringBuilder();
+        out.append("# snapshot ").append(System.currentTimeMillis()).append('\n');
+
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(entry.getKey()).append(" count=").append(entry.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.append(String.format("%s count=%d mean=%.0f p50=%d p90=%d p99=%d max=%d%n",
+                    entry.getKey(), h.getCount(), h.getMean(),
+                    h.getValueAtPercentile(50), h.getValueAtPercentile(90),
+                    h.getValueAtPercentile(99), h.getMax()));
+        }
+        return out.toString();
+    }
+
+    // Writes the snapshot to a temporary file first so readers never see a partial file
+    public static void writeSnapshot(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.writeString(temp, snapshot());
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Starts a daemon thread that rewrites the snapshot file every period
+    public static synchronized void startPeriodicExport(Path file, long periodSeconds) {
+        if (exporter != null) {
+            return;
+        }
+        exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> {
+            try {
+                writeSnapshot(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+}
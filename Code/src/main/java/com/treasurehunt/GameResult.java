@@ -0,0 +1,47 @@
+package com.treasurehunt;
+
+/**
+ * Outcome of a single finished game of Treasure Hunt, as stored in the score database.
+ */
+public class GameResult {
+    private final String mapId;
+    private final String player;
+    private final int score;
+    private final int treasuresFound;
+    private final long durationMillis;
+    private final long finishedAt;
+
+    public GameResult(String mapId, String player, int score, int treasuresFound,
+                      long durationMillis, long finishedAt) {
+        this.mapId = mapId;
+        this.player = player;
+        this.score = score;
+        this.treasuresFound = treasuresFound;
+        this.durationMillis = durationMillis;
+        this.finishedAt = finishedAt;
+    }
+
+    public String getMapId() {
+        return mapId;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTreasuresFound() {
+        return treasuresFound;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+}
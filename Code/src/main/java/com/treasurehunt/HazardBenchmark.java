@@ -0,0 +1,64 @@
+package com.treasurehunt;
+
+import java.util.Random;
+
+/**
+ * Measures the per-tick cost of HazardWorld with thousands of moving hazards on large
+ * random maps, while a player random-walks so monsters keep re-routing.
+ */
+public class HazardBenchmark {
+    private static final int[] MAP_SIZES = {256, 1024};
+    private static final int[] HAZARD_COUNTS = {1_000, 10_000, 100_000};
+    private static final double WALL_DENSITY = 0.15;
+    private static final int WARMUP_TICKS = 100;
+    private static final int TICKS = 200;
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %10s %12s %14s %12s%n", "size", "hazards", "us/tick", "ns/hazard", "collisions");
+
+        for (int size : MAP_SIZES) {
+            Random rand = new Random(42);
+            int[] cost = new int[size * size];
+            for (int i = 0; i < cost.length; i++) {
+                cost[i] = rand.nextDouble() < WALL_DENSITY ? 0 : 1;
+            }
+            int center = (size / 2) * size + size / 2;
+            cost[center] = 1;
+
+            for (int hazards : HAZARD_COUNTS) {
+                HazardWorld world = new HazardWorld(cost, size, size, new Random(7));
+                world.spawnRandom(hazards / 2, hazards - hazards / 2, size / 2, size / 2, 0);
+                int[] player = {size / 2, size / 2};
+
+                for (int t = 0; t < WARMUP_TICKS; t++) {
+                    stepPlayer(cost, size, player, rand);
+                    world.tick(player[0], player[1]);
+                    world.takeDirtyBounds();
+                }
+
+                long collisions = 0;
+                long begin = System.nanoTime();
+                for (int t = 0; t < TICKS; t++) {
+                    stepPlayer(cost, size, player, rand);
+                    collisions += world.tick(player[0], player[1]);
+                    world.takeDirtyBounds();
+                }
+                double nanosPerTick = (double) (System.nanoTime() - begin) / TICKS;
+
+                System.out.printf("%8d %10d %12.1f %14.1f %12d%n", size, world.size(),
+                        nanosPerTick / 1000, nanosPerTick / world.size(), collisions);
+            }
+        }
+    }
+
+    // Moves the player one step in a random open direction
+    private static void stepPlayer(int[] cost, int size, int[] player, Random rand) {
+        int dir = rand.nextInt(4);
+        int nx = player[0] + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+        int ny = player[1] + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+        if (nx >= 0 && nx < size && ny >= 0 && ny < size && cost[ny * size + nx] != 0) {
+            player[0] = nx;
+            player[1] = ny;
+        }
+    }
+}
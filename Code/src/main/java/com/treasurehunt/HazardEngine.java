@@ -0,0 +1,73 @@
+package com.treasurehunt;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.Timer;
+
+/**
+ * Advances the moving hazards of the Treasure Hunt game on a fixed tick.
+ * Ticks run on the Swing Event Dispatch Thread through a Timer, so hazards, player and
+ * board never need locking. Each tick moves every hazard, reports collisions with the
+ * player to the game and issues a single repaint covering all cells that changed.
+ */
+public class HazardEngine {
+    // Milliseconds between ticks, configurable with -Dtreasurehunt.hazards.tick.ms
+    private static final int TICK_MILLIS = Integer.getInteger("treasurehunt.hazards.tick.ms", 250);
+    // Hazards never start closer than this to the player
+    private static final int SAFE_DISTANCE = 5;
+
+    private static final LatencyHistogram TICK_LATENCY = GameMetrics.histogram("hazards.tick.latency_ns");
+    private static final LongAdder COLLISIONS = GameMetrics.counter("hazards.collisions");
+
+    private final TreasureHunt game;
+    private final HazardWorld world;
+    private final Timer timer;
+
+    // Spawns the hazards on the game's current map, half of them guards and half monsters
+    public HazardEngine(TreasureHunt game, PathFinder pathFinder, int hazards) {
+        this.game = game;
+        this.world = new HazardWorld(pathFinder.costGrid(), TreasureHunt.SIZE, TreasureHunt.SIZE, new Random());
+        int guards = (hazards + 1) / 2;
+        world.spawnRandom(guards, hazards - guards, game.playerPos.x, game.playerPos.y, SAFE_DISTANCE);
+        world.takeDirtyBounds();
+        this.timer = new Timer(TICK_MILLIS, e -> tick());
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    public HazardWorld getWorld() {
+        return world;
+    }
+
+    // Called after the player moves, since the player can walk into a hazard between ticks
+    public int checkPlayer() {
+        int hits = world.resolveCollisions(game.playerPos.x, game.playerPos.y);
+        finish(hits);
+        return hits;
+    }
+
+    private void tick() {
+        long startNanos = GameMetrics.startTimer();
+        int hits = world.tick(game.playerPos.x, game.playerPos.y);
+        GameMetrics.stopTimer(TICK_LATENCY, startNanos);
+        finish(hits);
+    }
+
+    // Charges any collisions and repaints every moved hazard with one request
+    private void finish(int hits) {
+        if (hits > 0) {
+            GameMetrics.add(COLLISIONS, hits);
+            game.hazardHit(hits);
+        }
+        if (world.hasDirty()) {
+            int[] bounds = world.takeDirtyBounds();
+            game.repaintCells(bounds[0], bounds[1], bounds[2], bounds[3]);
+        }
+    }
+}
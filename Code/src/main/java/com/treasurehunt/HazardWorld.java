@@ -0,0 +1,368 @@
+package com.treasurehunt;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Moving hazards for the harder Treasure Hunt game mode.
+ * Guards walk back and forth along a patrol route found with PathFinder's bucket-queue A*;
+ * monsters step down a bounded BFS distance field towards the player once they are close
+ * enough, and wander otherwise. Entity state is kept as parallel primitive arrays
+ * (struct-of-arrays) so a tick over thousands of hazards touches no objects, and a spatial
+ * hash answers collision queries. Cells that changed during a tick are folded into one
+ * dirty rectangle so the caller can repaint once per tick.
+ */
+public class HazardWorld {
+    public static final int GUARD = 0;
+    public static final int MONSTER = 1;
+
+    // How far away a monster notices the player, in steps
+    private static final int MONSTER_SIGHT = 8;
+    // Monsters move every other tick so the player can outrun them
+    private static final int MONSTER_PERIOD = 2;
+    // Maximum distance from its spawn to the far end of a guard's patrol
+    private static final int PATROL_RANGE = 6;
+    private static final int HASH_SHIFT = 3;
+
+    private final int width;
+    private final int height;
+    private final int[] cost;
+    private final Random rand;
+    private final SpatialHash hash;
+    private boolean hashStale = true;
+
+    // Struct-of-arrays entity storage, valid for indices below count
+    private int count = 0;
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] kinds = new int[16];
+    private int[] pathOffset = new int[16];
+    private int[] pathLength = new int[16];
+    private int[] pathIndex = new int[16];
+    private int[] pathDirection = new int[16];
+
+    // Patrol routes of all guards, stored back to back as cell indices
+    private int[] pathPool = new int[256];
+    private int pathPoolSize = 0;
+
+    // Bounded distance field around the player, rebuilt only when the player changes cell
+    private final int[] distance;
+    private final int[] distanceQueue;
+    private int distanceCells = 0;
+    private int playerCell = -1;
+
+    private long ticks = 0;
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
+
+    // cost[y * width + x] is the move cost of a cell, 0 for walls
+    public HazardWorld(int[] cost, int width, int height, Random rand) {
+        this.cost = cost;
+        this.width = width;
+        this.height = height;
+        this.rand = rand;
+        this.hash = new SpatialHash(width, height, HASH_SHIFT);
+        this.distance = new int[width * height];
+        this.distanceQueue = new int[width * height];
+        Arrays.fill(distance, -1);
+        clearDirty();
+    }
+
+    // Spawns a hazard on an open cell, returning its index
+    public int spawn(int kind, int x, int y) {
+        if (count == xs.length) {
+            int capacity = count * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            pathOffset = Arrays.copyOf(pathOffset, capacity);
+            pathLength = Arrays.copyOf(pathLength, capacity);
+            pathIndex = Arrays.copyOf(pathIndex, capacity);
+            pathDirection = Arrays.copyOf(pathDirection, capacity);
+        }
+        int i = count++;
+        xs[i] = x;
+        ys[i] = y;
+        kinds[i] = kind;
+        pathOffset[i] = pathPoolSize;
+        pathLength[i] = 0;
+        pathIndex[i] = 0;
+        pathDirection[i] = 1;
+
+        if (kind == GUARD) {
+            planPatrol(i);
+        }
+        markDirty(x, y);
+        hashStale = true;
+        return i;
+    }
+
+    // Spawns hazards on random open cells at least minDistance steps (Manhattan) from the given cell
+    public void spawnRandom(int guards, int monsters, int awayX, int awayY, int minDistance) {
+        for (int n = 0; n < guards + monsters; n++) {
+            int x;
+            int y;
+            int attempts = 0;
+            do {
+                x = rand.nextInt(width);
+                y = rand.nextInt(height);
+                attempts++;
+            } while ((cost[y * width + x] == 0 || Math.abs(x - awayX) + Math.abs(y - awayY) < minDistance)
+                    && attempts < 1000);
+            if (cost[y * width + x] != 0) {
+                spawn(n < guards ? GUARD : MONSTER, x, y);
+            }
+        }
+    }
+
+    /**
+     * Advances every hazard by one tick and returns how many of them caught the player.
+     * Hazards that catch the player are sent back to the start of their route.
+     */
+    public int tick(int playerX, int playerY) {
+        ticks++;
+        updateDistanceField(playerX, playerY);
+        boolean monstersMove = ticks % MONSTER_PERIOD == 0;
+
+        for (int i = 0; i < count; i++) {
+            int oldX = xs[i];
+            int oldY = ys[i];
+            if (kinds[i] == GUARD) {
+                stepGuard(i);
+            } else if (monstersMove) {
+                stepMonster(i);
+            }
+            if (xs[i] != oldX || ys[i] != oldY) {
+                markDirty(oldX, oldY);
+                markDirty(xs[i], ys[i]);
+                hashStale = true;
+            }
+        }
+        return resolveCollisions(playerX, playerY);
+    }
+
+    // Counts hazards on the player's cell and respawns them away from the player
+    public int resolveCollisions(int playerX, int playerY) {
+        // The player may have moved since the last tick, and respawns must land out of their sight
+        updateDistanceField(playerX, playerY);
+        if (hashStale) {
+            hash.rebuild(xs, ys, count);
+            hashStale = false;
+        }
+        int[] hits = new int[1];
+        hash.forEachNear(playerX, playerY, 0, xs, ys, i -> {
+            hits[0]++;
+            respawn(i);
+        });
+        if (hits[0] > 0) {
+            hashStale = true;
+        }
+        return hits[0];
+    }
+
+    // Calls the action for every hazard within radius cells of the given cell
+    public void forEachNear(int x, int y, int radius, IntConsumer action) {
+        if (hashStale) {
+            hash.rebuild(xs, ys, count);
+            hashStale = false;
+        }
+        hash.forEachNear(x, y, radius, xs, ys, action);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    public int getKind(int i) {
+        return kinds[i];
+    }
+
+    // True when something moved since the dirty rectangle was last taken
+    public boolean hasDirty() {
+        return dirtyMaxX >= dirtyMinX;
+    }
+
+    // Dirty rectangle as {minX, minY, maxX, maxY} in cells, then cleared for the next tick
+    public int[] takeDirtyBounds() {
+        int[] bounds = {dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY};
+        clearDirty();
+        return bounds;
+    }
+
+    /**
+     * Finds a route from the guard's spawn to a nearby open cell and stores it in the pool.
+     * The search only sees the window of cells within PATROL_RANGE of the spawn, so planning
+     * thousands of patrols on a large map does not pay for a whole-map search each time.
+     */
+    private void planPatrol(int i) {
+        int minX = clamp(xs[i] - PATROL_RANGE, width);
+        int minY = clamp(ys[i] - PATROL_RANGE, height);
+        int windowWidth = clamp(xs[i] + PATROL_RANGE, width) - minX + 1;
+        int windowHeight = clamp(ys[i] + PATROL_RANGE, height) - minY + 1;
+        int[] window = new int[windowWidth * windowHeight];
+        for (int y = 0; y < windowHeight; y++) {
+            System.arraycopy(cost, (minY + y) * width + minX, window, y * windowWidth, windowWidth);
+        }
+
+        int start = (ys[i] - minY) * windowWidth + (xs[i] - minX);
+        int[] route = null;
+        for (int attempt = 0; attempt < 4 && route == null; attempt++) {
+            int target = rand.nextInt(window.length);
+            if (target != start && window[target] != 0) {
+                route = PathFinder.bucketSearch(window, windowWidth, windowHeight, start, target, true,
+                        () -> false, new int[1]);
+            }
+        }
+        if (route == null) {
+            route = new int[]{start};
+        }
+        // Translate window cells back to map cells
+        for (int k = 0; k < route.length; k++) {
+            route[k] = (minY + route[k] / windowWidth) * width + minX + route[k] % windowWidth;
+        }
+
+        if (pathPoolSize + route.length > pathPool.length) {
+            pathPool = Arrays.copyOf(pathPool, Math.max(pathPool.length * 2, pathPoolSize + route.length));
+        }
+        System.arraycopy(route, 0, pathPool, pathPoolSize, route.length);
+        pathOffset[i] = pathPoolSize;
+        pathLength[i] = route.length;
+        pathPoolSize += route.length;
+    }
+
+    // Guards walk to the end of their route and turn around
+    private void stepGuard(int i) {
+        if (pathLength[i] < 2) {
+            return;
+        }
+        int next = pathIndex[i] + pathDirection[i];
+        if (next < 0 || next >= pathLength[i]) {
+            pathDirection[i] = -pathDirection[i];
+            next = pathIndex[i] + pathDirection[i];
+        }
+        pathIndex[i] = next;
+        int cell = pathPool[pathOffset[i] + next];
+        xs[i] = cell % width;
+        ys[i] = cell / width;
+    }
+
+    // Monsters within sight step to a neighbour closer to the player, others wander
+    private void stepMonster(int i) {
+        int x = xs[i];
+        int y = ys[i];
+        int cell = y * width + x;
+        int d = distance[cell];
+        int bestCell = -1;
+
+        if (d > 0) {
+            if (x > 0 && distance[cell - 1] >= 0 && distance[cell - 1] < d) {
+                bestCell = cell - 1;
+            } else if (x + 1 < width && distance[cell + 1] >= 0 && distance[cell + 1] < d) {
+                bestCell = cell + 1;
+            } else if (y > 0 && distance[cell - width] >= 0 && distance[cell - width] < d) {
+                bestCell = cell - width;
+            } else if (y + 1 < height && distance[cell + width] >= 0 && distance[cell + width] < d) {
+                bestCell = cell + width;
+            }
+        } else if (d < 0) {
+            int dir = rand.nextInt(4);
+            int nx = x + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+            int ny = y + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+            if (nx >= 0 && nx < width && ny >= 0 && ny < height && cost[ny * width + nx] != 0) {
+                bestCell = ny * width + nx;
+            }
+        }
+
+        if (bestCell >= 0) {
+            xs[i] = bestCell % width;
+            ys[i] = bestCell / width;
+        }
+    }
+
+    // Guards go back to the start of their patrol; monsters jump to a random cell out of the player's sight
+    private void respawn(int i) {
+        markDirty(xs[i], ys[i]);
+        if (kinds[i] == GUARD && pathLength[i] > 0) {
+            int cell = pathPool[pathOffset[i]];
+            pathIndex[i] = 0;
+            pathDirection[i] = 1;
+            xs[i] = cell % width;
+            ys[i] = cell / width;
+        } else {
+            int cell = findRespawnCell();
+            if (cell >= 0) {
+                xs[i] = cell % width;
+                ys[i] = cell / width;
+            }
+        }
+        markDirty(xs[i], ys[i]);
+    }
+
+    // A random open cell out of the player's sight, else any open cell but the player's, else -1
+    private int findRespawnCell() {
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            int cell = rand.nextInt(cost.length);
+            if (cost[cell] != 0 && distance[cell] < 0) {
+                return cell;
+            }
+        }
+        // Small or crowded maps: scan every cell from a random offset so the search always ends
+        int offset = rand.nextInt(cost.length);
+        int fallback = -1;
+        for (int k = 0; k < cost.length; k++) {
+            int cell = (offset + k) % cost.length;
+            if (cost[cell] != 0) {
+                if (distance[cell] < 0) {
+                    return cell;
+                }
+                if (fallback < 0 && cell != playerCell) {
+                    fallback = cell;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private void updateDistanceField(int playerX, int playerY) {
+        int cell = playerY * width + playerX;
+        if (cell == playerCell) {
+            return;
+        }
+        // Reset only the cells the previous search touched
+        for (int k = 0; k < distanceCells; k++) {
+            distance[distanceQueue[k]] = -1;
+        }
+        playerCell = cell;
+        distanceCells = PathFinder.boundedDistances(cost, width, height, cell, MONSTER_SIGHT,
+                distance, distanceQueue);
+    }
+
+    private void markDirty(int x, int y) {
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x);
+        dirtyMaxY = Math.max(dirtyMaxY, y);
+    }
+
+    private void clearDirty() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = Integer.MIN_VALUE;
+        dirtyMaxY = Integer.MIN_VALUE;
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(limit - 1, value));
+    }
+}
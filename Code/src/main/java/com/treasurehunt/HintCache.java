@@ -0,0 +1,143 @@
+package com.treasurehunt;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of hint paths for the Treasure Hunt game.
+ * A hint only depends on the map layout, the player's cell and which treasures are left,
+ * so repeated hint requests from the same position are served from memory.
+ * The cache is thread-safe so it can be shared by every game in the process.
+ */
+public class HintCache {
+    // Which search produced the cached path
+    public enum Algorithm {
+        BFS,
+        A_STAR
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, List<Point>> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public HintCache(int capacity) {
+        this.capacity = capacity;
+        // Access order turns the LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Point>> eldest) {
+                if (size() > HintCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns a copy of the cached path, or null on a miss
+    public synchronized List<Point> get(String mapId, Point player, BitSet treasures, Algorithm algorithm) {
+        List<Point> path = entries.get(new Key(mapId, player, treasures, algorithm));
+        if (path == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copyOf(path);
+    }
+
+    // Stores a copy of the path, since callers may hold on to mutable points such as the player position
+    public synchronized void put(String mapId, Point player, BitSet treasures, Algorithm algorithm, List<Point> path) {
+        if (path == null) {
+            return;
+        }
+        entries.put(new Key(mapId, player, treasures, algorithm), copyOf(path));
+    }
+
+    // Drops every entry for a map whose remaining treasures match the given set
+    public synchronized void invalidate(String mapId, BitSet treasures) {
+        Iterator<Key> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if (key.mapId.equals(mapId) && key.treasures.equals(treasures)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private static List<Point> copyOf(List<Point> path) {
+        List<Point> copy = new ArrayList<>(path.size());
+        for (Point p : path) {
+            copy.add(new Point(p));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    // Cache key: map identity, player cell, remaining treasures and algorithm
+    private static final class Key {
+        final String mapId;
+        final int x;
+        final int y;
+        final BitSet treasures;
+        final Algorithm algorithm;
+
+        Key(String mapId, Point player, BitSet treasures, Algorithm algorithm) {
+            this.mapId = mapId;
+            this.x = player.x;
+            this.y = player.y;
+            this.treasures = (BitSet) treasures.clone();
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Key key = (Key) obj;
+            return x == key.x && y == key.y && algorithm == key.algorithm
+                    && mapId.equals(key.mapId) && treasures.equals(key.treasures);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mapId.hashCode();
+            result = 31 * result + x;
+            result = 31 * result + y;
+            result = 31 * result + treasures.hashCode();
+            return 31 * result + algorithm.hashCode();
+        }
+    }
+}
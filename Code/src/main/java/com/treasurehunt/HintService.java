@@ -0,0 +1,141 @@
+package com.treasurehunt;
+
+import java.awt.Point;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Computes hints off the Swing Event Dispatch Thread for the Treasure Hunt game.
+ * Searches run on a dedicated worker thread and their result is handed back to the EDT.
+ * A new hint or a player move cancels the hint in progress, and an algorithm that has
+ * recently been slower than the UI latency budget is swapped for a cheaper one.
+ */
+public class HintService {
+    // UI latency budget in milliseconds, configurable with -Dtreasurehunt.hint.budget.ms
+    private static final long BUDGET_MILLIS = Long.getLong("treasurehunt.hint.budget.ms", 50);
+    private static final long BUDGET_NANOS = BUDGET_MILLIS * 1_000_000L;
+    // Weight of the newest sample in the running latency average
+    private static final double SMOOTHING = 0.3;
+
+    private static final LongAdder FALLBACKS = GameMetrics.counter("hints.fallbacks");
+    private static final LongAdder CANCELLATIONS = GameMetrics.counter("hints.cancelled");
+
+    private final TreasureHunt game;
+    private final PathFinder pathFinder;
+    private final ExecutorService executor;
+    private final AtomicLongArray averageNanos = new AtomicLongArray(HintCache.Algorithm.values().length);
+    private Request current;
+
+    public HintService(TreasureHunt game, PathFinder pathFinder) {
+        this.game = game;
+        this.pathFinder = pathFinder;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "hint-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Starts a hint search towards the target, must be called on the EDT
+    public void request(HintCache.Algorithm requested, Point target) {
+        cancel();
+
+        HintCache.Algorithm algorithm = chooseAlgorithm(requested);
+        // Everything the worker reads is captured here, since a new game replaces the board mid-search
+        Point start = new Point(game.playerPos);
+        BitSet treasures = game.remainingTreasures();
+        String mapId = game.mapId;
+        PathFinder snapshot = pathFinder.snapshot();
+        Request request = new Request();
+        current = request;
+
+        request.future = CompletableFuture.supplyAsync(() -> {
+            long startNanos = System.nanoTime();
+            List<Point> path = TreasureHunt.findHintPath(snapshot, mapId, algorithm, start, target, treasures,
+                    request.cancelled::get);
+            if (!request.cancelled.get()) {
+                recordLatency(algorithm, System.nanoTime() - startNanos);
+            }
+            return path;
+        }, executor);
+
+        // Progressive result: if the search overruns the budget, show a greedy step until it finishes
+        request.provisionalTimer = new Timer((int) BUDGET_MILLIS, e -> {
+            if (current == request && !request.future.isDone()
+                    && game.showProvisionalHint(snapshot.greedyStep(start, target))) {
+                charge(request);
+            }
+        });
+        request.provisionalTimer.setRepeats(false);
+        request.provisionalTimer.start();
+
+        request.future.whenComplete((path, error) -> SwingUtilities.invokeLater(() -> {
+            // The player may have moved between the search finishing and this running on the EDT
+            if (current != request || request.cancelled.get()) {
+                return;
+            }
+            request.provisionalTimer.stop();
+            current = null;
+            if (error != null) {
+                error.printStackTrace();
+                game.applyHint(null);
+            } else if (game.applyHint(path)) {
+                charge(request);
+            }
+        }));
+    }
+
+    // Cancels the hint in progress, if any, must be called on the EDT
+    public void cancel() {
+        if (current == null) {
+            return;
+        }
+        current.cancelled.set(true);
+        current.future.cancel(false);
+        current.provisionalTimer.stop();
+        current = null;
+        GameMetrics.add(CANCELLATIONS, 1);
+    }
+
+    // A hint is paid for once, when its first step is shown, whether provisional or final
+    private void charge(Request request) {
+        if (!request.charged) {
+            request.charged = true;
+            game.chargeHint();
+        }
+    }
+
+    // Falls back from BFS to the more focused A* when BFS has recently been slower than the budget
+    private HintCache.Algorithm chooseAlgorithm(HintCache.Algorithm requested) {
+        if (requested == HintCache.Algorithm.BFS
+                && averageNanos.get(HintCache.Algorithm.BFS.ordinal()) > BUDGET_NANOS) {
+            GameMetrics.add(FALLBACKS, 1);
+            // Let the average decay so BFS gets retried once the map or machine is quicker again
+            averageNanos.getAndUpdate(HintCache.Algorithm.BFS.ordinal(), average -> average / 2);
+            return HintCache.Algorithm.A_STAR;
+        }
+        return requested;
+    }
+
+    // Keeps an exponentially weighted average of how long each algorithm takes
+    private void recordLatency(HintCache.Algorithm algorithm, long nanos) {
+        averageNanos.getAndUpdate(algorithm.ordinal(),
+                average -> average == 0 ? nanos : (long) (average + SMOOTHING * (nanos - average)));
+    }
+
+    // State of one hint request
+    private static class Request {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<List<Point>> future;
+        Timer provisionalTimer;
+        boolean charged;
+    }
+}
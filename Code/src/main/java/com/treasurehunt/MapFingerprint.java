@@ -0,0 +1,72 @@
+package com.treasurehunt;
+
+import java.util.SplittableRandom;
+
+/**
+ * Canonical Zobrist fingerprint of a Treasure Hunt map.
+ * Every (cell, feature) pair for walls and treasures has a fixed random 64-bit key, and a map's
+ * hash is the XOR of the keys of its features. The hash is computed under all 8 rotations and
+ * reflections of the square grid and the smallest is kept, so symmetric copies of a layout
+ * share one fingerprint. The key table is seeded with a constant so fingerprints are stable
+ * across runs and can be stored.
+ */
+public final class MapFingerprint {
+    private static final long SEED = 0x7E3A5C1D2B4F6A89L;
+    private static final int WALL = 0;
+    private static final int TREASURE = 1;
+
+    private static final int SIZE = TreasureHunt.SIZE;
+    private static final long[][] KEYS = new long[2][SIZE * SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] featureKeys : KEYS) {
+            for (int i = 0; i < featureKeys.length; i++) {
+                featureKeys[i] = random.nextLong();
+            }
+        }
+    }
+
+    private MapFingerprint() {
+    }
+
+    // Smallest Zobrist hash of the map over its 8 symmetries
+    public static long of(int[][] map) {
+        long[] hashes = new long[8];
+        int n = SIZE - 1;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                int feature;
+                if (map[x][y] == 1) {
+                    feature = WALL;
+                } else if (map[x][y] == 2) {
+                    feature = TREASURE;
+                } else {
+                    continue;
+                }
+                long[] keys = KEYS[feature];
+                // Where this cell lands under each rotation and reflection
+                hashes[0] ^= keys[index(x, y)];
+                hashes[1] ^= keys[index(n - y, x)];
+                hashes[2] ^= keys[index(n - x, n - y)];
+                hashes[3] ^= keys[index(y, n - x)];
+                hashes[4] ^= keys[index(n - x, y)];
+                hashes[5] ^= keys[index(x, n - y)];
+                hashes[6] ^= keys[index(y, x)];
+                hashes[7] ^= keys[index(n - y, n - x)];
+            }
+        }
+
+        long canonical = hashes[0];
+        for (int i = 1; i < hashes.length; i++) {
+            if (Long.compareUnsigned(hashes[i], canonical) < 0) {
+                canonical = hashes[i];
+            }
+        }
+        return canonical;
+    }
+
+    private static int index(int x, int y) {
+        return y * SIZE + x;
+    }
+}
@@ -4,6 +4,7 @@ import java.awt.Point;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 
 import org.json.simple.JSONArray;
@@ -22,9 +23,60 @@ public class MapGenerator {
     private static final String MAP_PREFIX = "map";
     private static final String MAP_EXTENSION = ".json";
     private static final int MAX_MAPS = 1000;
+    private static final int TERRAIN_PATCHES = 6;
+    private static final LatencyHistogram GENERATE_LATENCY = GameMetrics.histogram("mapgenerator.generate.latency_ns");
 
     public static void main(String[] args) {
-        generateNextAvailableMap();
+        if (args.length > 0) {
+            generateUniqueMaps(Integer.parseInt(args[0]));
+        } else {
+            generateNextAvailableMap();
+        }
+    }
+
+    // Generates a batch of maps, rejecting layouts that duplicate an existing map or an earlier one in the batch.
+    public static void generateUniqueMaps(int count) {
+        FingerprintIndex index = new FingerprintIndex(count);
+        File[] existing = new File(".").listFiles((d, name) -> name.startsWith(MAP_PREFIX) && name.endsWith(MAP_EXTENSION));
+        if (existing != null) {
+            for (File file : existing) {
+                try {
+                    int[][] map = MapValidator.validate(Files.readString(file.toPath())).getMap();
+                    if (map != null) {
+                        index.add(MapFingerprint.of(map));
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        int created = 0;
+        int duplicates = 0;
+        int mapNumber = 1;
+        // Guards against looping forever if the generator keeps producing known layouts
+        int attemptsLeft = count * 10;
+        while (created < count && mapNumber <= MAX_MAPS && attemptsLeft-- > 0) {
+            String filename = MAP_PREFIX + mapNumber + MAP_EXTENSION;
+            if (new File(filename).exists()) {
+                mapNumber++;
+                attemptsLeft++;
+                continue;
+            }
+            int[][] grid = generateMap();
+            if (!index.add(MapFingerprint.of(grid))) {
+                duplicates++;
+                continue;
+            }
+            saveMapToJson(grid, filename);
+            created++;
+            mapNumber++;
+        }
+
+        int attempts = created + duplicates;
+        System.out.printf("Created %d maps, rejected %d duplicates (%.2f%%), index uses %.1f MB per million maps%n",
+                created, duplicates, attempts == 0 ? 0.0 : 100.0 * duplicates / attempts,
+                index.bytesPerMillionMaps() / (1024 * 1024));
     }
 
     //Generates a new map with the next available filename.
@@ -50,6 +102,10 @@ public class MapGenerator {
 
     // Generates a new random map with walls, treasures, and guaranteed paths.
     public static int[][] generateMap() {
+        GameEvents.MapGeneration event = new GameEvents.MapGeneration();
+        event.begin();
+        long startNanos = GameMetrics.startTimer();
+
         int[][] grid = new int[SIZE][SIZE];
         Random rand = new Random();
 
@@ -67,6 +123,11 @@ public class MapGenerator {
         // Place treasures with guaranteed paths
         placeAccessibleTreasures(grid, rand);
 
+        // Cover some open ground with mud, water and a road
+        placeTerrain(grid, rand);
+
+        GameMetrics.stopTimer(GENERATE_LATENCY, startNanos);
+        event.commit();
         return grid;
     }
 
@@ -135,6 +196,35 @@ public class MapGenerator {
         }
     }
 
+    // Spreads patches of mud and water over open ground, then lays a road across the map through them.
+    private static void placeTerrain(int[][] grid, Random rand) {
+        for (int i = 0; i < TERRAIN_PATCHES; i++) {
+            int code = rand.nextBoolean() ? Terrain.MUD.getCode() : Terrain.WATER.getCode();
+            int centerX = rand.nextInt(SIZE);
+            int centerY = rand.nextInt(SIZE);
+            int radius = 1 + rand.nextInt(2);
+
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dy = -radius; dy <= radius; dy++) {
+                    int x = centerX + dx;
+                    int y = centerY + dy;
+                    if (Math.abs(dx) + Math.abs(dy) <= radius
+                            && x >= 0 && x < SIZE && y >= 0 && y < SIZE && grid[x][y] == 0) {
+                        grid[x][y] = code;
+                    }
+                }
+            }
+        }
+
+        // Roads only replace ground and terrain, never walls, treasures or the player
+        int roadY = rand.nextInt(SIZE);
+        for (int x = 0; x < SIZE; x++) {
+            if (grid[x][roadY] == 0 || grid[x][roadY] >= Terrain.ROAD.getCode()) {
+                grid[x][roadY] = Terrain.ROAD.getCode();
+            }
+        }
+    }
+
     // Places treasures in the map while ensuring they are reachable from the start.
     private static void placeAccessibleTreasures(int[][] grid, Random rand) {
         List<Point> potentialSpots = new ArrayList<>();
@@ -168,31 +258,14 @@ public class MapGenerator {
         }
     }
 
-    // Checks if a path exists between two points using BFS.
-    private static boolean isReachable(int[][] grid, Point from, Point to) {
-        boolean[][] visited = new boolean[SIZE][SIZE];
-        Queue<Point> queue = new LinkedList<>();
-        queue.add(from);
-        visited[from.x][from.y] = true;
-
-        int[][] directions = {{-1,0}, {1,0}, {0,-1}, {0,1}};
-
-        while (!queue.isEmpty()) {
-            Point current = queue.poll();
-            if (current.equals(to)) return true;
-
-            for (int[] dir : directions) {
-                int newX = current.x + dir[0];
-                int newY = current.y + dir[1];
+    // Checks that a map has exactly one player, the expected treasure count and every treasure reachable.
+    public static boolean isValidMap(int[][] grid) {
+        return MapValidator.check(grid) == MapValidator.Problem.NONE;
+    }
 
-                if (newX >= 0 && newX < SIZE && newY >= 0 && newY < SIZE
-                        && !visited[newX][newY] && grid[newX][newY] != 1) {
-                    visited[newX][newY] = true;
-                    queue.add(new Point(newX, newY));
-                }
-            }
-        }
-        return false;
+    // Checks if a path exists between two points using a bit-parallel flood fill.
+    private static boolean isReachable(int[][] grid, Point from, Point to) {
+        return BitboardGrid.fromMap(grid).isReachable(from.x, from.y, to.x, to.y);
     }
 
     // Clears a path between two points by removing walls along the optimal path.
@@ -277,7 +350,7 @@ public class MapGenerator {
 
     @SuppressWarnings("unchecked")
     //Saves the generated map to a JSON file.
-    private static void saveMapToJson(int[][] grid, String filename) {
+    static void saveMapToJson(int[][] grid, String filename) {
         JSONObject mapData = new JSONObject();
         JSONArray gridData = new JSONArray();
 
@@ -0,0 +1,133 @@
+package com.treasurehunt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a pool of ready-to-play maps for the Treasure Hunt game.
+ * Background producer threads generate and validate maps into a lock-free queue, so a new
+ * game takes a map in O(1) instead of generating one on the UI thread. The pool depth
+ * bounds how far producers run ahead; when the pool is empty the caller generates a map
+ * itself and the starvation is counted.
+ */
+public class MapSupply {
+    private static final LatencyHistogram STARVED_LATENCY = GameMetrics.histogram("mapsupply.starved.latency_ns");
+
+    private final ConcurrentLinkedQueue<int[][]> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readyCount = new AtomicInteger();
+    private final Semaphore freeSlots;
+    private final int depth;
+    private final int threads;
+    private final List<Thread> producers = new ArrayList<>();
+    private volatile boolean running = false;
+
+    private final LongAdder generated = GameMetrics.counter("mapsupply.generated");
+    private final LongAdder rejected = GameMetrics.counter("mapsupply.rejected");
+    private final LongAdder taken = GameMetrics.counter("mapsupply.taken");
+    private final LongAdder starved = GameMetrics.counter("mapsupply.starved");
+
+    public MapSupply(int depth, int threads) {
+        if (depth < 1 || threads < 1) {
+            throw new IllegalArgumentException("Pool depth and thread count must be at least 1");
+        }
+        this.depth = depth;
+        this.threads = threads;
+        this.freeSlots = new Semaphore(depth);
+    }
+
+    // Reads -Dtreasurehunt.maps.pool and -Dtreasurehunt.maps.threads
+    public static MapSupply fromSystemProperties() {
+        return new MapSupply(Integer.getInteger("treasurehunt.maps.pool", 8),
+                Integer.getInteger("treasurehunt.maps.threads", 1));
+    }
+
+    // Starts the producer threads, they are daemons so they never keep the game alive
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            Thread producer = new Thread(this::produce, "map-producer-" + i);
+            producer.setDaemon(true);
+            producer.setPriority(Thread.MIN_PRIORITY);
+            producers.add(producer);
+            producer.start();
+        }
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        for (Thread producer : producers) {
+            producer.interrupt();
+        }
+        producers.clear();
+    }
+
+    // Takes a ready map, generating one on the spot if the pool has run dry
+    public int[][] take() {
+        int[][] map = ready.poll();
+        if (map != null) {
+            readyCount.decrementAndGet();
+            freeSlots.release();
+            taken.increment();
+            return map;
+        }
+        starved.increment();
+        long startNanos = GameMetrics.startTimer();
+        map = generateValidMap();
+        GameMetrics.stopTimer(STARVED_LATENCY, startNanos);
+        return map;
+    }
+
+    // Number of maps ready to be taken right now
+    public int size() {
+        return readyCount.get();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTakenCount() {
+        return taken.sum();
+    }
+
+    // How many takes found the pool empty and had to generate a map themselves
+    public long getStarvationCount() {
+        return starved.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // Waits for a free slot, then fills it with a freshly generated map
+    private void produce() {
+        while (running) {
+            try {
+                freeSlots.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            ready.offer(generateValidMap());
+            readyCount.incrementAndGet();
+        }
+    }
+
+    // The generator can occasionally fall short of treasures, so keep going until a map validates
+    private int[][] generateValidMap() {
+        while (true) {
+            int[][] map = MapGenerator.generateMap();
+            generated.increment();
+            if (MapGenerator.isValidMap(map)) {
+                return map;
+            }
+            rejected.increment();
+        }
+    }
+}
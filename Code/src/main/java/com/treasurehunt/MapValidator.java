@@ -0,0 +1,358 @@
+package com.treasurehunt;
+
+import java.awt.Point;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Headless validator for Treasure Hunt map files.
+ * Streams over a map directory, or a pack file holding one map JSON per line, in parallel and
+ * checks structure, dimensions, player start, treasure count and treasure reachability.
+ * Bad maps can be repaired in place or moved to a quarantine directory, and a report is written.
+ * Only per-problem counters are kept in memory, so corpus size does not affect memory use.
+ *
+ * With --dedupe, maps whose canonical fingerprint was already seen are reported as duplicates.
+ *
+ * Usage: MapValidator &lt;directory|pack.jsonl&gt; [--repair] [--dedupe] [--quarantine &lt;dir&gt;] [--report &lt;file&gt;]
+ */
+public class MapValidator {
+    private static final int SIZE = TreasureHunt.SIZE;
+    private static final int TREASURES = TreasureHunt.TREASURES;
+
+    // What is wrong with a map, NONE if it is playable
+    public enum Problem {
+        NONE,
+        EMPTY_FILE,
+        MALFORMED_JSON,
+        BAD_DIMENSIONS,
+        BAD_CELL,
+        NO_PLAYER,
+        MULTIPLE_PLAYERS,
+        WRONG_TREASURE_COUNT,
+        UNREACHABLE_TREASURE,
+        DUPLICATE
+    }
+
+    // Result of validating one map: the problem found and the parsed grid, if it could be parsed
+    public static class Outcome {
+        private final Problem problem;
+        private final int[][] map;
+
+        Outcome(Problem problem, int[][] map) {
+            this.problem = problem;
+            this.map = map;
+        }
+
+        public Problem getProblem() {
+            return problem;
+        }
+
+        public int[][] getMap() {
+            return map;
+        }
+    }
+
+    private final boolean repair;
+    private final Path quarantineDir;
+    private final Map<Problem, LongAdder> counts = new EnumMap<>(Problem.class);
+    private final LongAdder repaired = new LongAdder();
+    private final LongAdder quarantined = new LongAdder();
+    private final Writer report;
+    private FingerprintIndex fingerprints;
+
+    public MapValidator(boolean repair, Path quarantineDir, Writer report) {
+        this.repair = repair;
+        this.quarantineDir = quarantineDir;
+        this.report = report;
+        for (Problem problem : Problem.values()) {
+            counts.put(problem, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: MapValidator <directory|pack.jsonl> [--repair] [--dedupe] [--quarantine <dir>] [--report <file>]");
+            return;
+        }
+        Path source = Paths.get(args[0]);
+        boolean repair = false;
+        boolean dedupe = false;
+        Path quarantine = null;
+        Path reportFile = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--repair": repair = true; break;
+                case "--dedupe": dedupe = true; break;
+                case "--quarantine": quarantine = Paths.get(args[++i]); break;
+                case "--report": reportFile = Paths.get(args[++i]); break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+
+        try (Writer report = reportFile == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(reportFile)) {
+            MapValidator validator = new MapValidator(repair, quarantine, report);
+            if (dedupe) {
+                validator.enableDeduplication(new FingerprintIndex());
+            }
+            long start = System.nanoTime();
+            if (Files.isDirectory(source)) {
+                validator.validateDirectory(source);
+            } else {
+                validator.validatePack(source);
+            }
+            validator.writeSummary((System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // Rejects maps whose canonical fingerprint is already in the index
+    public void enableDeduplication(FingerprintIndex index) {
+        this.fingerprints = index;
+    }
+
+    // Flags a valid map as a duplicate when its fingerprint has been seen before
+    private Outcome deduplicate(Outcome outcome) {
+        if (fingerprints != null && outcome.getProblem() == Problem.NONE
+                && !fingerprints.add(MapFingerprint.of(outcome.getMap()))) {
+            return new Outcome(Problem.DUPLICATE, outcome.getMap());
+        }
+        return outcome;
+    }
+
+    // Validates every map*.json file in the directory in parallel
+    public void validateDirectory(Path dir) throws IOException {
+        if (quarantineDir != null) {
+            Files.createDirectories(quarantineDir);
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith("map") && name.endsWith(".json");
+                    })
+                    .parallel()
+                    .forEach(this::validateFile);
+        }
+    }
+
+    // Validates a pack with one map JSON per line; packs are only reported, never rewritten
+    public void validatePack(Path pack) throws IOException {
+        try (Stream<String> lines = Files.lines(pack)) {
+            lines.parallel().forEach(line -> {
+                Outcome outcome = deduplicate(validate(line));
+                counts.get(outcome.getProblem()).increment();
+                if (outcome.getProblem() != Problem.NONE) {
+                    writeLine(pack + " " + outcome.getProblem() + " " + abbreviate(line));
+                }
+            });
+        }
+    }
+
+    private void validateFile(Path file) {
+        String json;
+        try {
+            json = Files.readString(file);
+        } catch (IOException e) {
+            json = "";
+        }
+        Outcome outcome = deduplicate(validate(json));
+        Problem problem = outcome.getProblem();
+        counts.get(problem).increment();
+        if (problem == Problem.NONE) {
+            return;
+        }
+
+        String action = "";
+        try {
+            if (repair && problem == Problem.UNREACHABLE_TREASURE && repairReachability(outcome.getMap())) {
+                MapGenerator.saveMapToJson(outcome.getMap(), file.toString());
+                repaired.increment();
+                action = " repaired";
+            } else if (quarantineDir != null) {
+                Files.move(file, quarantineDir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                quarantined.increment();
+                action = " quarantined";
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writeLine(file + " " + problem + action);
+    }
+
+    // Parses and checks a map JSON document
+    public static Outcome validate(String json) {
+        if (json == null || json.isBlank()) {
+            return new Outcome(Problem.EMPTY_FILE, null);
+        }
+
+        Object gridData;
+        try {
+            Object parsed = new JSONParser().parse(json);
+            if (!(parsed instanceof JSONObject)) {
+                return new Outcome(Problem.MALFORMED_JSON, null);
+            }
+            gridData = ((JSONObject) parsed).get("grid");
+        } catch (Exception e) {
+            return new Outcome(Problem.MALFORMED_JSON, null);
+        }
+        if (!(gridData instanceof JSONArray) || ((JSONArray) gridData).size() != SIZE) {
+            return new Outcome(Problem.BAD_DIMENSIONS, null);
+        }
+
+        // Rows in the file are y, characters are x, matching how the game indexes [x][y]
+        int[][] map = new int[SIZE][SIZE];
+        JSONArray rows = (JSONArray) gridData;
+        for (int y = 0; y < SIZE; y++) {
+            Object row = rows.get(y);
+            if (!(row instanceof String) || ((String) row).length() != SIZE) {
+                return new Outcome(Problem.BAD_DIMENSIONS, null);
+            }
+            for (int x = 0; x < SIZE; x++) {
+                char c = ((String) row).charAt(x);
+                if (c < '0' || c > '6') {
+                    return new Outcome(Problem.BAD_CELL, null);
+                }
+                map[x][y] = c - '0';
+            }
+        }
+        return new Outcome(check(map), map);
+    }
+
+    // Checks a parsed map for player start, treasure count and treasure reachability
+    public static Problem check(int[][] map) {
+        if (map == null || map.length != SIZE) {
+            return Problem.BAD_DIMENSIONS;
+        }
+        Point player = null;
+        List<Point> treasures = new ArrayList<>();
+        for (int x = 0; x < SIZE; x++) {
+            if (map[x] == null || map[x].length != SIZE) {
+                return Problem.BAD_DIMENSIONS;
+            }
+            for (int y = 0; y < SIZE; y++) {
+                switch (map[x][y]) {
+                    case 0:
+                    case 1:
+                    case 4:
+                    case 5:
+                    case 6:
+                        break;
+                    case 2:
+                        treasures.add(new Point(x, y));
+                        break;
+                    case 3:
+                        if (player != null) {
+                            return Problem.MULTIPLE_PLAYERS;
+                        }
+                        player = new Point(x, y);
+                        break;
+                    default:
+                        return Problem.BAD_CELL;
+                }
+            }
+        }
+        if (player == null) {
+            return Problem.NO_PLAYER;
+        }
+        if (treasures.size() != TREASURES) {
+            return Problem.WRONG_TREASURE_COUNT;
+        }
+
+        // One bit-parallel flood fill from the player covers every treasure
+        BitboardGrid walls = BitboardGrid.fromMap(map);
+        long[] reachable = walls.reachable(player.x, player.y);
+        for (Point treasure : treasures) {
+            if (!walls.contains(reachable, treasure.x, treasure.y)) {
+                return Problem.UNREACHABLE_TREASURE;
+            }
+        }
+        return Problem.NONE;
+    }
+
+    // Carves an L-shaped corridor from the player to every treasure, knocking down walls on the way
+    private static boolean repairReachability(int[][] map) {
+        Point player = null;
+        List<Point> treasures = new ArrayList<>();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                if (map[x][y] == 3) {
+                    player = new Point(x, y);
+                } else if (map[x][y] == 2) {
+                    treasures.add(new Point(x, y));
+                }
+            }
+        }
+        for (Point treasure : treasures) {
+            int x = player.x;
+            int y = player.y;
+            while (x != treasure.x || y != treasure.y) {
+                if (x != treasure.x) {
+                    x += Integer.signum(treasure.x - x);
+                } else {
+                    y += Integer.signum(treasure.y - y);
+                }
+                if (map[x][y] == 1) {
+                    map[x][y] = 0;
+                }
+            }
+        }
+        return check(map) == Problem.NONE;
+    }
+
+    private synchronized void writeLine(String line) {
+        try {
+            report.write(line);
+            report.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Appends per-problem totals to the report
+    public void writeSummary(long elapsedMillis) throws IOException {
+        long total = 0;
+        for (LongAdder count : counts.values()) {
+            total += count.sum();
+        }
+        writeLine("# maps=" + total + " elapsed_ms=" + elapsedMillis
+                + " repaired=" + repaired.sum() + " quarantined=" + quarantined.sum());
+        for (Map.Entry<Problem, LongAdder> entry : counts.entrySet()) {
+            if (entry.getValue().sum() > 0) {
+                writeLine("# " + entry.getKey() + "=" + entry.getValue().sum());
+            }
+        }
+        if (fingerprints != null && total > 0) {
+            writeLine(String.format("# duplicate_rate=%.4f index_bytes_per_million_maps=%.0f",
+                    (double) counts.get(Problem.DUPLICATE).sum() / total, fingerprints.bytesPerMillionMaps()));
+        }
+        report.flush();
+    }
+
+    public long getCount(Problem problem) {
+        return counts.get(problem).sum();
+    }
+
+    private static String abbreviate(String line) {
+        return line.length() <= 40 ? line : line.substring(0, 40) + "...";
+    }
+}
@@ -2,20 +2,50 @@ package com.treasurehunt;
 
 import java.awt.Point;
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 /**
  * Handles pathfinding algorithms for the Treasure Hunt game.
  * Implements both BFS and A* algorithms to find paths between points on the game grid.
  */
 public class PathFinder {
+    private static final LatencyHistogram BFS_LATENCY = GameMetrics.histogram("pathfinder.bfs.latency_ns");
+    private static final LatencyHistogram BFS_EXPANDED = GameMetrics.histogram("pathfinder.bfs.nodes_expanded");
+    private static final LatencyHistogram WEIGHTED_LATENCY = GameMetrics.histogram("pathfinder.weighted.latency_ns");
+    private static final LatencyHistogram WEIGHTED_EXPANDED = GameMetrics.histogram("pathfinder.weighted.nodes_expanded");
+    private static final LatencyHistogram PATH_LENGTH = GameMetrics.histogram("pathfinder.path_length");
+
     private final TreasureHunt game;
+    // Frozen move costs indexed y * SIZE + x when this finder searches a snapshot, null for the live board
+    private final int[] snapshotCost;
 
     public PathFinder(TreasureHunt game) {
         this.game = game;
+        this.snapshotCost = null;
+    }
+
+    private PathFinder(int[] snapshotCost) {
+        this.game = null;
+        this.snapshotCost = snapshotCost;
+    }
+
+    // Finder over a copy of the current walls and terrain, safe to search off the EDT while the board is replaced
+    public PathFinder snapshot() {
+        return new PathFinder(costGrid());
     }
 
     // BFS Pathfinding Algorithm
     public List<Point> findBFSPath(Point start, Point end) {
+        return findBFSPath(start, end, () -> false);
+    }
+
+    // BFS that gives up and returns null as soon as the search is cancelled
+    public List<Point> findBFSPath(Point start, Point end, BooleanSupplier cancelled) {
+        GameEvents.Pathfinding event = new GameEvents.Pathfinding();
+        event.begin();
+        long startNanos = GameMetrics.startTimer();
+        int expanded = 0;
+
         Queue<Point> queue = new LinkedList<>();
         Map<Point, Point> cameFrom = new HashMap<>();
         Set<Point> visited = new HashSet<>();
@@ -26,11 +56,15 @@ public class PathFinder {
         cameFrom.put(start, null);
 
         while (!queue.isEmpty()) {
+            if (cancelled.getAsBoolean()) {
+                return recordSearch(event, "BFS", startNanos, expanded, null);
+            }
             Point current = queue.poll();
+            expanded++;
 
             // Path found
             if (current.equals(end)) {
-                return reconstructPath(cameFrom, current);
+                return recordSearch(event, "BFS", startNanos, expanded, reconstructPath(cameFrom, current));
             }
 
             // Explore all neighbors
@@ -42,47 +76,235 @@ public class PathFinder {
                 }
             }
         }
-        return null;
+        return recordSearch(event, "BFS", startNanos, expanded, null);
     }
 
-    // A* Pathfinding Algorithm
-    public List<Point> findAStarPath(Point start, Point end) {
-        PriorityQueue<AStarNode> openSet = new PriorityQueue<>();
-        Map<Point, Point> cameFrom = new HashMap<>();
-        Map<Point, Integer> gScore = new HashMap<>();
-        Map<Point, Integer> fScore = new HashMap<>();
+    // Records latency, nodes expanded and path length for a finished search, then passes the path through
+    private List<Point> recordSearch(GameEvents.Pathfinding event, String algorithm, long startNanos,
+                                     int expanded, List<Point> path) {
+        int length = path == null ? 0 : path.size();
+        if (GameMetrics.ENABLED) {
+            if (algorithm.equals("BFS")) {
+                GameMetrics.stopTimer(BFS_LATENCY, startNanos);
+                BFS_EXPANDED.record(expanded);
+            } else {
+                GameMetrics.stopTimer(WEIGHTED_LATENCY, startNanos);
+                WEIGHTED_EXPANDED.record(expanded);
+            }
+            PATH_LENGTH.record(length);
+        }
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.nodesExpanded = expanded;
+            event.pathLength = length;
+            event.commit();
+        }
+        return path;
+    }
 
-        // Initialize starting node
-        gScore.put(start, 0);
-        fScore.put(start, heuristicEstimate(start, end));
-        openSet.add(new AStarNode(start, fScore.get(start)));
+    // Weighted A* over terrain costs, giving up with null as soon as the search is cancelled
+    public List<Point> findWeightedAStarPath(Point start, Point end, BooleanSupplier cancelled) {
+        GameEvents.Pathfinding event = new GameEvents.Pathfinding();
+        event.begin();
+        long startNanos = GameMetrics.startTimer();
+        int[] expanded = new int[1];
 
-        while (!openSet.isEmpty()) {
-            AStarNode current = openSet.poll();
+        int[] path = bucketSearch(costGrid(), TreasureHunt.SIZE, TreasureHunt.SIZE,
+                cellIndex(start), cellIndex(end), true, cancelled, expanded);
 
-            // Path found
-            if (current.point.equals(end)) {
-                return reconstructPath(cameFrom, current.point);
+        List<Point> points = null;
+        if (path != null) {
+            points = new ArrayList<>(path.length);
+            for (int cell : path) {
+                points.add(new Point(cell % TreasureHunt.SIZE, cell / TreasureHunt.SIZE));
+            }
+        }
+        return recordSearch(event, "Weighted A*", startNanos, expanded[0], points);
+    }
+
+    // Move cost of every cell indexed y * SIZE + x, 0 for walls; callers must not modify it
+    int[] costGrid() {
+        if (snapshotCost != null) {
+            return snapshotCost;
+        }
+        int[] cost = new int[TreasureHunt.SIZE * TreasureHunt.SIZE];
+        for (int x = 0; x < TreasureHunt.SIZE; x++) {
+            for (int y = 0; y < TreasureHunt.SIZE; y++) {
+                cost[y * TreasureHunt.SIZE + x] = game.grid[x][y] == TreasureHunt.CellType.WALL
+                        ? 0 : game.terrain[x][y].getCost();
+            }
+        }
+        return cost;
+    }
+
+    private static int cellIndex(Point p) {
+        return p.y * TreasureHunt.SIZE + p.x;
+    }
+
+    /**
+     * Shortest path over small integer cell costs using a circular bucket queue (Dial's algorithm).
+     * cost[y * width + x] is the price of entering a cell and 0 marks a wall. With useHeuristic the
+     * key is g + minCost * Manhattan distance, which is consistent, so this becomes weighted A*.
+     * Keys never drop below the one being drained, and a relaxation raises a key by at most the
+     * largest cost plus the heuristic weight, so maxCost + weight + 1 buckets indexed by key
+     * modulo their count replace a binary heap and its log factor without entries wrapping.
+     * Returns the cell indices from start to end, or null if the end is unreachable or the
+     * search is cancelled. expanded[0] receives the number of nodes settled.
+     */
+    static int[] bucketSearch(int[] cost, int width, int height, int start, int end,
+                              boolean useHeuristic, BooleanSupplier cancelled, int[] expanded) {
+        int minCost = Integer.MAX_VALUE;
+        int maxCost = 0;
+        for (int c : cost) {
+            if (c > 0) {
+                minCost = Math.min(minCost, c);
+                maxCost = Math.max(maxCost, c);
             }
+        }
+        if (maxCost == 0 || cost[start] == 0 || cost[end] == 0) {
+            return null;
+        }
+        int weight = useHeuristic ? minCost : 0;
+        int endX = end % width;
+        int endY = end / width;
 
-            // Evaluate all neighbors
-            for (Point neighbor : getNeighbors(current.point)) {
-                int tentativeGScore = gScore.get(current.point) + 1;
+        int bucketCount = maxCost + weight + 1;
+        int[][] buckets = new int[bucketCount][16];
+        int[] bucketSizes = new int[bucketCount];
+        int[] g = new int[cost.length];
+        int[] cameFrom = new int[cost.length];
+        boolean[] closed = new boolean[cost.length];
+        Arrays.fill(g, Integer.MAX_VALUE);
 
-                if (!gScore.containsKey(neighbor) || tentativeGScore < gScore.get(neighbor)) {
-                    cameFrom.put(neighbor, current.point);
-                    gScore.put(neighbor, tentativeGScore);
-                    fScore.put(neighbor, tentativeGScore + heuristicEstimate(neighbor, end));
+        g[start] = 0;
+        cameFrom[start] = -1;
+        int startKey = weight * (Math.abs(start % width - endX) + Math.abs(start / width - endY));
+        pushBucket(buckets, bucketSizes, startKey % bucketCount, start);
+        int pending = 1;
+        int settled = 0;
 
-                    if (!openSet.contains(new AStarNode(neighbor, 0))) {
-                        openSet.add(new AStarNode(neighbor, fScore.get(neighbor)));
+        for (int key = startKey; pending > 0; key++) {
+            int b = key % bucketCount;
+            while (bucketSizes[b] > 0) {
+                int node = buckets[b][--bucketSizes[b]];
+                pending--;
+                int x = node % width;
+                int y = node / width;
+                // Skip entries left behind when a node was later reached more cheaply
+                if (closed[node] || g[node] + weight * (Math.abs(x - endX) + Math.abs(y - endY)) != key) {
+                    continue;
+                }
+                if (cancelled.getAsBoolean()) {
+                    expanded[0] = settled;
+                    return null;
+                }
+                closed[node] = true;
+                settled++;
+
+                if (node == end) {
+                    expanded[0] = settled;
+                    return reconstructCells(cameFrom, end);
+                }
+
+                for (int dir = 0; dir < 4; dir++) {
+                    int nx = x + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+                    int ny = y + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                        continue;
+                    }
+                    int neighbor = ny * width + nx;
+                    if (cost[neighbor] == 0 || closed[neighbor]) {
+                        continue;
+                    }
+                    int tentative = g[node] + cost[neighbor];
+                    if (tentative < g[neighbor]) {
+                        g[neighbor] = tentative;
+                        cameFrom[neighbor] = node;
+                        int neighborKey = tentative + weight * (Math.abs(nx - endX) + Math.abs(ny - endY));
+                        pushBucket(buckets, bucketSizes, neighborKey % bucketCount, neighbor);
+                        pending++;
                     }
                 }
             }
         }
+        expanded[0] = settled;
         return null;
     }
 
+    /**
+     * Breadth-first distances from the source over a cost grid (0 marks a wall), stopping at maxDistance.
+     * Only cells within reach are touched, so the cost depends on the radius rather than the map size.
+     * dist must be filled with -1 beforehand; the visited cells are left in queue[0..returned count)
+     * so the caller can reset just those entries before the next call.
+     */
+    static int boundedDistances(int[] cost, int width, int height, int source, int maxDistance,
+                                int[] dist, int[] queue) {
+        if (cost[source] == 0) {
+            return 0;
+        }
+        int head = 0;
+        int tail = 0;
+        dist[source] = 0;
+        queue[tail++] = source;
+
+        while (head < tail) {
+            int node = queue[head++];
+            int d = dist[node];
+            if (d == maxDistance) {
+                continue;
+            }
+            int x = node % width;
+            int y = node / width;
+            if (x > 0 && cost[node - 1] != 0 && dist[node - 1] < 0) {
+                dist[node - 1] = d + 1;
+                queue[tail++] = node - 1;
+            }
+            if (x + 1 < width && cost[node + 1] != 0 && dist[node + 1] < 0) {
+                dist[node + 1] = d + 1;
+                queue[tail++] = node + 1;
+            }
+            if (y > 0 && cost[node - width] != 0 && dist[node - width] < 0) {
+                dist[node - width] = d + 1;
+                queue[tail++] = node - width;
+            }
+            if (y + 1 < height && cost[node + width] != 0 && dist[node + width] < 0) {
+                dist[node + width] = d + 1;
+                queue[tail++] = node + width;
+            }
+        }
+        return tail;
+    }
+
+    private static void pushBucket(int[][] buckets, int[] bucketSizes, int b, int node) {
+        if (bucketSizes[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], buckets[b].length * 2);
+        }
+        buckets[b][bucketSizes[b]++] = node;
+    }
+
+    private static int[] reconstructCells(int[] cameFrom, int end) {
+        int length = 0;
+        for (int cell = end; cell != -1; cell = cameFrom[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = end, i = length - 1; cell != -1; cell = cameFrom[cell], i--) {
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    // Cheapest possible hint: the walkable neighbour closest to the target, ignoring walls further ahead
+    public Point greedyStep(Point start, Point end) {
+        Point best = null;
+        for (Point neighbor : getNeighbors(start)) {
+            if (best == null || heuristicEstimate(neighbor, end) < heuristicEstimate(best, end)) {
+                best = neighbor;
+            }
+        }
+        return best;
+    }
+
     // Manhattan distance heuristic
     private int heuristicEstimate(Point a, Point b) {
         return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
@@ -97,14 +319,19 @@ public class PathFinder {
             int x = p.x + dir[0];
             int y = p.y + dir[1];
 
-            if (x >= 0 && x < TreasureHunt.SIZE && y >= 0 && y < TreasureHunt.SIZE
-                    && game.grid[x][y] != TreasureHunt.CellType.WALL) {
+            if (x >= 0 && x < TreasureHunt.SIZE && y >= 0 && y < TreasureHunt.SIZE && isOpen(x, y)) {
                 neighbors.add(new Point(x, y));
             }
         }
         return neighbors;
     }
 
+    private boolean isOpen(int x, int y) {
+        return snapshotCost != null
+                ? snapshotCost[y * TreasureHunt.SIZE + x] != 0
+                : game.grid[x][y] != TreasureHunt.CellType.WALL;
+    }
+
     // Reconstruct the path from cameFrom map
     private List<Point> reconstructPath(Map<Point, Point> cameFrom, Point current) {
         List<Point> path = new ArrayList<>();
@@ -115,33 +342,4 @@ public class PathFinder {
         Collections.reverse(path);
         return path;
     }
-
-    // Node class for A* algorithm
-    private static class AStarNode implements Comparable<AStarNode> {
-        final Point point;
-        final int fScore;
-
-        AStarNode(Point point, int fScore) {
-            this.point = point;
-            this.fScore = fScore;
-        }
-
-        @Override
-        public int compareTo(AStarNode other) {
-            return Integer.compare(this.fScore, other.fScore);
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) return true;
-            if (obj == null || getClass() != obj.getClass()) return false;
-            AStarNode node = (AStarNode) obj;
-            return point.equals(node.point);
-        }
-
-        @Override
-        public int hashCode() {
-            return point.hashCode();
-        }
-    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.treasurehunt;
 
+import java.awt.Point;
 import java.awt.event.KeyEvent;
 import javax.swing.JOptionPane;
 
@@ -45,18 +46,23 @@ public class PlayerMovement {
             return;
         }
 
+        // A hint computed for the old position is no longer useful
+        game.cancelHint();
+
         // Clear current player position
+        Point oldPos = new Point(game.playerPos);
         game.grid[game.playerPos.x][game.playerPos.y] = TreasureHunt.CellType.EMPTY;
 
         // Check for treasure collection
         if (game.grid[newX][newY] == TreasureHunt.CellType.TREASURE) {
+            game.invalidateHintCache();
             game.visibility[newX][newY] = TreasureHunt.Visibility.VISIBLE;
             game.treasuresFound++;
 
             // Check for game completion
             JOptionPane.showMessageDialog(game, "Treasure found! " + game.treasuresFound + "/" + TreasureHunt.TREASURES);
             if (game.treasuresFound == TreasureHunt.TREASURES) {
-                JOptionPane.showMessageDialog(game, "You won! Final score: " + game.score);
+                game.finishGame();
                 System.exit(0);
             }
         }
@@ -66,10 +72,19 @@ public class PlayerMovement {
         game.grid[newX][newY] = TreasureHunt.CellType.PLAYER;
         game.visibility[newX][newY] = TreasureHunt.Visibility.VISIBLE;
 
-        // Clear any path hints and update score for the move
+        // Clear any path hints and charge the move by the terrain stepped onto
         game.clearPathMarkers();
-        game.score -= 1;
+        game.score -= game.terrain[newX][newY].getCost();
         game.updateScore();
-        game.repaint();
+
+        // Only repaint the cells that changed: old and new player cells plus newly revealed ones
+        game.repaintCell(oldPos);
+        game.repaintCell(game.playerPos);
+        for (Point p : game.revealAroundPlayer()) {
+            game.repaintCell(p);
+        }
+
+        // The player may have stepped onto a hazard between ticks
+        game.checkHazards();
     }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package com.treasurehunt;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQLite-backed game history and leaderboards for the Treasure Hunt game.
+ * Results are queued in memory and written by a background thread in batched transactions,
+ * so recording a result never blocks the game. The database runs in WAL mode so leaderboard
+ * queries on a separate connection can read while the writer is busy.
+ */
+public class ScoreDatabase implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int MAX_BATCH = 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private static final LongAdder WRITTEN = GameMetrics.counter("scores.written");
+    private static final LongAdder DROPPED = GameMetrics.counter("scores.dropped");
+
+    private static final String INSERT_GAME =
+            "INSERT INTO games (map_id, player, score, treasures, duration_ms, finished_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_MAP_STATS =
+            "INSERT INTO map_stats (map_id, plays, total_score, best_score) VALUES (?, 1, ?, ?) "
+                    + "ON CONFLICT(map_id) DO UPDATE SET plays = plays + 1, "
+                    + "total_score = total_score + excluded.total_score, "
+                    + "best_score = MAX(best_score, excluded.best_score)";
+    private static final String TOP_SCORES =
+            "SELECT map_id, player, score, treasures, duration_ms, finished_at FROM games "
+                    + "WHERE map_id = ? ORDER BY score DESC, duration_ms ASC LIMIT ?";
+    private static final String MAP_STATS =
+            "SELECT plays, total_score, best_score FROM map_stats WHERE map_id = ?";
+
+    private final Connection writeConnection;
+    private final Connection readConnection;
+    private final BlockingQueue<GameResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ScoreDatabase(String path) throws SQLException {
+        String url = "jdbc:sqlite:" + path;
+        writeConnection = DriverManager.getConnection(url);
+        try (Statement statement = writeConnection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS games ("
+                    + "id INTEGER PRIMARY KEY, map_id TEXT NOT NULL, player TEXT NOT NULL, "
+                    + "score INTEGER NOT NULL, treasures INTEGER NOT NULL, "
+                    + "duration_ms INTEGER NOT NULL, finished_at INTEGER NOT NULL)");
+            // Serves the per-map top-N query straight from the index
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_games_map_score "
+                    + "ON games (map_id, score DESC, duration_ms ASC)");
+            statement.execute("CREATE TABLE IF NOT EXISTS map_stats ("
+                    + "map_id TEXT PRIMARY KEY, plays INTEGER NOT NULL, "
+                    + "total_score INTEGER NOT NULL, best_score INTEGER NOT NULL)");
+        }
+        writeConnection.setAutoCommit(false);
+        readConnection = DriverManager.getConnection(url);
+
+        writer = new Thread(this::writeLoop, "score-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Queues a result for writing, returns false if the queue is full and the result was dropped
+    public boolean record(GameResult result) {
+        if (!running || !queue.offer(result)) {
+            GameMetrics.add(DROPPED, 1);
+            return false;
+        }
+        return true;
+    }
+
+    // Highest scores recorded on a map, best first
+    public synchronized List<GameResult> topScores(String mapId, int limit) throws SQLException {
+        List<GameResult> results = new ArrayList<>();
+        try (PreparedStatement statement = readConnection.prepareStatement(TOP_SCORES)) {
+            statement.setString(1, mapId);
+            statement.setInt(2, limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    results.add(new GameResult(rs.getString(1), rs.getString(2), rs.getInt(3),
+                            rs.getInt(4), rs.getLong(5), rs.getLong(6)));
+                }
+            }
+        }
+        return results;
+    }
+
+    // Plays, average score and best score on a map, or null if it has never been finished
+    public synchronized MapStats mapStats(String mapId) throws SQLException {
+        try (PreparedStatement statement = readConnection.prepareStatement(MAP_STATS)) {
+            statement.setString(1, mapId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new MapStats(rs.getLong(1), rs.getLong(2), rs.getInt(3));
+            }
+        }
+    }
+
+    // Stops accepting results, flushes what is queued and closes both connections
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            readConnection.close();
+            writeConnection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Waits for results and writes everything that has piled up in one transaction
+    private void writeLoop() {
+        List<GameResult> batch = new ArrayList<>(MAX_BATCH);
+        try (PreparedStatement insertGame = writeConnection.prepareStatement(INSERT_GAME);
+             PreparedStatement upsertStats = writeConnection.prepareStatement(UPSERT_MAP_STATS)) {
+            while (running || !queue.isEmpty()) {
+                try {
+                    GameResult first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    // close() interrupts us to drain the queue and stop
+                    if (queue.isEmpty()) {
+                        break;
+                    }
+                }
+                queue.drainTo(batch, MAX_BATCH - batch.size());
+                writeBatch(insertGame, upsertStats, batch);
+                batch.clear();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeBatch(PreparedStatement insertGame, PreparedStatement upsertStats,
+                            List<GameResult> batch) throws SQLException {
+        try {
+            for (GameResult result : batch) {
+                insertGame.setString(1, result.getMapId());
+                insertGame.setString(2, result.getPlayer());
+                insertGame.setInt(3, result.getScore());
+                insertGame.setInt(4, result.getTreasuresFound());
+                insertGame.setLong(5, result.getDurationMillis());
+                insertGame.setLong(6, result.getFinishedAt());
+                insertGame.addBatch();
+
+                upsertStats.setString(1, result.getMapId());
+                upsertStats.setInt(2, result.getScore());
+                upsertStats.setInt(3, result.getScore());
+                upsertStats.addBatch();
+            }
+            insertGame.executeBatch();
+            upsertStats.executeBatch();
+            writeConnection.commit();
+            GameMetrics.add(WRITTEN, batch.size());
+        } catch (SQLException e) {
+            writeConnection.rollback();
+            GameMetrics.add(DROPPED, batch.size());
+            e.printStackTrace();
+        } finally {
+            // A failed batch must not replay its rows into the next one
+            insertGame.clearBatch();
+            upsertStats.clearBatch();
+        }
+    }
+
+    /**
+     * Aggregate results for one map.
+     */
+    public static class MapStats {
+        private final long plays;
+        private final long totalScore;
+        private final int bestScore;
+
+        MapStats(long plays, long totalScore, int bestScore) {
+            this.plays = plays;
+            this.totalScore = totalScore;
+            this.bestScore = bestScore;
+        }
+
+        public long getPlays() {
+            return plays;
+        }
+
+        public double getAverageScore() {
+            return plays == 0 ? 0.0 : (double) totalScore / plays;
+        }
+
+        public int getBestScore() {
+            return bestScore;
+        }
+    }
+}
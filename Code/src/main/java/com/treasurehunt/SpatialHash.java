@@ -0,0 +1,71 @@
+package com.treasurehunt;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform-grid spatial hash over entity positions stored as parallel int arrays.
+ * The map is split into square buckets of 2^shift cells; each rebuild counting-sorts the
+ * entity indices by bucket into one flat array, so a rebuild is O(entities + buckets)
+ * with no per-entity allocation, and a query only looks at the buckets around a cell.
+ */
+public class SpatialHash {
+    private final int shift;
+    private final int columns;
+    private final int rows;
+    private final int[] bucketStart;
+    private int[] entries = new int[0];
+
+    public SpatialHash(int width, int height, int shift) {
+        this.shift = shift;
+        this.columns = ((width - 1) >> shift) + 1;
+        this.rows = ((height - 1) >> shift) + 1;
+        this.bucketStart = new int[columns * rows + 1];
+    }
+
+    // Re-buckets the first count entities by their current positions
+    public void rebuild(int[] xs, int[] ys, int count) {
+        if (entries.length < count) {
+            entries = new int[Math.max(count, entries.length * 2)];
+        }
+        Arrays.fill(bucketStart, 0);
+        for (int i = 0; i < count; i++) {
+            bucketStart[bucketOf(xs[i], ys[i]) + 1]++;
+        }
+        for (int b = 1; b < bucketStart.length; b++) {
+            bucketStart[b] += bucketStart[b - 1];
+        }
+        // Fill back to front so each bucket ends up in index order without a cursor array
+        for (int i = count - 1; i >= 0; i--) {
+            int b = bucketOf(xs[i], ys[i]);
+            entries[--bucketStart[b + 1]] = i;
+        }
+        // Each bucket's start now sits one slot to the right, so shift everything back
+        System.arraycopy(bucketStart, 1, bucketStart, 0, bucketStart.length - 1);
+        bucketStart[bucketStart.length - 1] = count;
+    }
+
+    // Calls the action for every entity within radius cells (Chebyshev distance) of the cell
+    public void forEachNear(int x, int y, int radius, int[] xs, int[] ys, IntConsumer action) {
+        int minColumn = Math.max(0, (x - radius) >> shift);
+        int maxColumn = Math.min(columns - 1, (x + radius) >> shift);
+        int minRow = Math.max(0, (y - radius) >> shift);
+        int maxRow = Math.min(rows - 1, (y + radius) >> shift);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                int b = row * columns + column;
+                for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+                    int i = entries[k];
+                    if (Math.abs(xs[i] - x) <= radius && Math.abs(ys[i] - y) <= radius) {
+                        action.accept(i);
+                    }
+                }
+            }
+        }
+    }
+
+    private int bucketOf(int x, int y) {
+        return (y >> shift) * columns + (x >> shift);
+    }
+}
@@ -0,0 +1,50 @@
+package com.treasurehunt;
+
+import java.awt.Color;
+
+/**
+ * Ground types for walkable cells in the Treasure Hunt game.
+ * Each terrain has an integer move cost that is charged when the player steps onto it
+ * and used as the edge weight by the weighted pathfinders. Terrain is stored in the map
+ * grid as extra cell codes next to 0 (plain ground), 1 (wall), 2 (treasure) and 3 (player).
+ */
+public enum Terrain {
+    PLAIN(0, 1, Color.WHITE),
+    ROAD(4, 1, new Color(225, 225, 225)),
+    MUD(5, 3, new Color(181, 140, 99)),
+    WATER(6, 5, new Color(150, 200, 255));
+
+    private final int code;
+    private final int cost;
+    private final Color color;
+
+    Terrain(int code, int cost, Color color) {
+        this.code = code;
+        this.cost = cost;
+        this.color = color;
+    }
+
+    // Map cell code for this terrain
+    public int getCode() {
+        return code;
+    }
+
+    // Points charged for stepping onto this terrain
+    public int getCost() {
+        return cost;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    // Terrain under a map cell; walls, treasures and the player start sit on plain ground
+    public static Terrain fromCode(int code) {
+        for (Terrain terrain : values()) {
+            if (terrain.code == code) {
+                return terrain;
+            }
+        }
+        return PLAIN;
+    }
+}
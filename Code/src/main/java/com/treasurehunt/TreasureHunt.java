@@ -6,11 +6,12 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.*;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.io.File;
-import java.io.FileReader;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 
 /**
  * Main game class for the Treasure Hunt game.
@@ -21,6 +22,26 @@ public class TreasureHunt extends JFrame {
     static final int SIZE = 20;
     private static final int CELL_SIZE = 30;
     static final int TREASURES = 3;
+    // How many cells around the player are revealed by line of sight
+    static final int VIEW_RADIUS = 2;
+    private static final int STARTING_SCORE = 100;
+    // Number of best scores shown when the game is won
+    private static final int LEADERBOARD_SIZE = 5;
+    private static final int HINT_COST = 3;
+    // Moving hazards per game, enabled with -Dtreasurehunt.hazards=<count>
+    private static final int HAZARDS = Integer.getInteger("treasurehunt.hazards", 0);
+    private static final int HAZARD_PENALTY = 10;
+    private static final String INSTRUCTIONS = "Use Arrow Keys: ↑ → ↓ ← to move";
+
+    // Maps generated in the background so a new game never waits for the generator
+    private static final MapSupply mapSupply = MapSupply.fromSystemProperties();
+
+    private static final LatencyHistogram MAP_LOAD_LATENCY = GameMetrics.histogram("game.map_load.latency_ns");
+    // Hint paths shared by every game in this process
+    private static final int HINT_CACHE_CAPACITY = 4096;
+    private static final HintCache hintCache = new HintCache(HINT_CACHE_CAPACITY);
+
+    private static final LatencyHistogram FRAME_LATENCY = GameMetrics.histogram("game.frame.latency_ns");
 
     // Each cell can have a type
     protected enum CellType {
@@ -40,14 +61,22 @@ public class TreasureHunt extends JFrame {
     // Game state variables
     protected CellType[][] grid;
     protected Visibility[][] visibility;
+    protected Terrain[][] terrain;
     protected Point playerPos;
-    protected int score = 100;
+    protected int score = STARTING_SCORE;
     protected int treasuresFound = 0;
     protected JLabel scoreLabel;
     protected JLabel timeLabel;
     protected JPanel gamePanel;
+    protected FieldOfView fieldOfView;
+    protected String mapId;
+    // Id of the whole map, walls, terrain, treasures and start, that leaderboard scores are grouped by
+    protected String leaderboardId;
     private PlayerMovement playerMovement;
     private PathFinder pathFinder;
+    private HintService hintService;
+    private HazardEngine hazardEngine;
+    private ScoreDatabase scoreDatabase;
     private long startTime;
     private Timer gameTimer;
     private boolean isGameComplete = false;
@@ -68,6 +97,7 @@ public class TreasureHunt extends JFrame {
 
         // Set up the game grid based on the loaded map
         initializeGame(generatedMap);
+        scoreDatabase = openScoreDatabase();
 
         // Create a custom JPanel to draw the game board
         gamePanel = new JPanel() {
@@ -83,6 +113,8 @@ public class TreasureHunt extends JFrame {
         // Set up input and pathfinding handlers
         playerMovement = new PlayerMovement(this);
         pathFinder = new PathFinder(this);
+        hintService = new HintService(this, pathFinder);
+        setupHazards();
 
         // Listener for arrow key presses to move the player
         gamePanel.addKeyListener(new KeyAdapter() {
@@ -111,6 +143,12 @@ public class TreasureHunt extends JFrame {
             gamePanel.requestFocusInWindow();
         });
 
+        JButton newGameButton = new JButton("New Game");
+        newGameButton.addActionListener(e -> {
+            startNewGame();
+            gamePanel.requestFocusInWindow();
+        });
+
         // UI layout setup
         JPanel controlPanel = new JPanel(new GridLayout(2, 1));
         JPanel scorePanel = new JPanel();
@@ -120,8 +158,9 @@ public class TreasureHunt extends JFrame {
         JPanel buttonPanel = new JPanel();
         buttonPanel.add(bfsHintButton);
         buttonPanel.add(aStarHintButton);
+        buttonPanel.add(newGameButton);
 
-        instructionsLabel = new JLabel("Use Arrow Keys: ↑ → ↓ ← to move");
+        instructionsLabel = new JLabel(INSTRUCTIONS);
         instructionsLabel.setHorizontalAlignment(SwingConstants.CENTER);
         instructionsLabel.setFont(new Font("Arial", Font.BOLD, 14));
 
@@ -142,6 +181,97 @@ public class TreasureHunt extends JFrame {
         startTime = System.currentTimeMillis();
         gameTimer = new Timer(1000, e -> updateTimer());
         gameTimer.start();
+        if (hazardEngine != null) {
+            hazardEngine.start();
+        }
+    }
+
+    // Replaces the hazards with a fresh set on the current map, when the hazard mode is on
+    private void setupHazards() {
+        if (hazardEngine != null) {
+            hazardEngine.stop();
+            hazardEngine = null;
+        }
+        if (HAZARDS > 0) {
+            hazardEngine = new HazardEngine(this, pathFinder, HAZARDS);
+        }
+    }
+
+    // Charges the player for running into hazards, without a dialog that would stall the tick
+    protected void hazardHit(int hits) {
+        if (isGameComplete) {
+            return;
+        }
+        score -= HAZARD_PENALTY * hits;
+        updateScore();
+        instructionsLabel.setText("Caught by a hazard! -" + HAZARD_PENALTY * hits + " points");
+    }
+
+    // Checks whether the player just walked into a hazard
+    protected void checkHazards() {
+        if (hazardEngine != null) {
+            hazardEngine.checkPlayer();
+        }
+    }
+
+    // Opens the score database given by -Dtreasurehunt.db, the game still runs without it if that fails
+    private static ScoreDatabase openScoreDatabase() {
+        try {
+            ScoreDatabase database = new ScoreDatabase(System.getProperty("treasurehunt.db", "treasurehunt.db"));
+            // Flush queued results when System.exit ends the game
+            Runtime.getRuntime().addShutdownHook(new Thread(database::close, "score-flush"));
+            return database;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Restarts on a fresh map from the background supply
+    protected void startNewGame() {
+        cancelHint();
+        initializeGame(mapSupply.take());
+        score = STARTING_SCORE;
+        treasuresFound = 0;
+        isGameComplete = false;
+        startTime = System.currentTimeMillis();
+        gameTimer.restart();
+        timeLabel.setText("Time: 00:00");
+        updateScore();
+        instructionsLabel.setText(INSTRUCTIONS);
+        setupHazards();
+        if (hazardEngine != null) {
+            hazardEngine.start();
+        }
+        repaint();
+    }
+
+    // Records the finished game and shows the final score alongside the best scores on this map
+    protected void finishGame() {
+        isGameComplete = true;
+        gameTimer.stop();
+        if (hazardEngine != null) {
+            hazardEngine.stop();
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        StringBuilder message = new StringBuilder("You won! Final score: " + score);
+
+        if (scoreDatabase != null) {
+            try {
+                List<GameResult> best = scoreDatabase.topScores(leaderboardId, LEADERBOARD_SIZE);
+                if (!best.isEmpty()) {
+                    message.append("\n\nBest on this map:");
+                    for (GameResult result : best) {
+                        message.append("\n").append(result.getPlayer()).append(": ").append(result.getScore());
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            scoreDatabase.record(new GameResult(leaderboardId, System.getProperty("user.name"), score,
+                    treasuresFound, duration, System.currentTimeMillis()));
+        }
+        JOptionPane.showMessageDialog(this, message.toString());
     }
 
     // Updates the timer display every second
@@ -154,46 +284,54 @@ public class TreasureHunt extends JFrame {
         }
     }
 
-    // Loads a random map file from local JSON files
+    // Loads a random map, recording how long the directory scan and parse took
     protected int[][] loadRandomMap() {
+        GameEvents.MapLoad event = new GameEvents.MapLoad();
+        event.begin();
+        long startNanos = GameMetrics.startTimer();
+
+        int[][] map = readRandomMapFile();
+
+        GameMetrics.stopTimer(MAP_LOAD_LATENCY, startNanos);
+        if (event.shouldCommit()) {
+            event.success = map != null;
+            event.commit();
+        }
+        return map;
+    }
+
+    // Reads a random map file from local JSON files
+    private int[][] readRandomMapFile() {
         File dir = new File(".");
         File[] files = dir.listFiles((d, name) -> name.startsWith("map") && name.endsWith(".json"));
 
+        // No map files, so take a pre-generated map instead of generating one now
         if (files == null || files.length == 0) {
-            MapGenerator.generateNextAvailableMap();
-            files = dir.listFiles((d, name) -> name.startsWith("map") && name.endsWith(".json"));
-            if (files == null || files.length == 0) {
-                return null;
-            }
+            return mapSupply.take();
         }
 
-        // Pick a random file and parse it into a 2D map array
-        Random rand = new Random();
-        File mapFile = files[rand.nextInt(files.length)];
-
-        try {
-            JSONParser parser = new JSONParser();
-            JSONObject mapData = (JSONObject) parser.parse(new FileReader(mapFile));
-            JSONArray gridData = (JSONArray) mapData.get("grid");
-
-            int[][] map = new int[SIZE][SIZE];
-            for (int y = 0; y < SIZE; y++) {
-                String row = (String) gridData.get(y);
-                for (int x = 0; x < SIZE; x++) {
-                    map[x][y] = Character.getNumericValue(row.charAt(x));
+        // Try the files in random order, skipping any that are empty or invalid
+        List<File> candidates = new ArrayList<>(Arrays.asList(files));
+        Collections.shuffle(candidates);
+        for (File mapFile : candidates) {
+            try {
+                MapValidator.Outcome outcome = MapValidator.validate(Files.readString(mapFile.toPath()));
+                if (outcome.getProblem() == MapValidator.Problem.NONE) {
+                    return outcome.getMap();
                 }
+                System.err.println("Skipping " + mapFile.getName() + ": " + outcome.getProblem());
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-            return map;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
         }
+        return mapSupply.take();
     }
 
     // Converts the loaded integer map into cell types, and sets the player's starting position
     protected void initializeGame(int[][] generatedMap) {
         grid = new CellType[SIZE][SIZE];
         visibility = new Visibility[SIZE][SIZE];
+        terrain = new Terrain[SIZE][SIZE];
         playerPos = new Point(0, 0);
 
         for (int i = 0; i < SIZE; i++) {
@@ -209,13 +347,67 @@ public class TreasureHunt extends JFrame {
                     default: grid[i][j] = CellType.EMPTY;
                 }
                 visibility[i][j] = Visibility.HIDDEN;
+                terrain[i][j] = Terrain.fromCode(generatedMap[i][j]);
             }
         }
         visibility[playerPos.x][playerPos.y] = Visibility.VISIBLE;
+        mapId = layoutIdOf(generatedMap);
+        leaderboardId = leaderboardIdOf(generatedMap);
+
+        // Reveal whatever the player can already see from the start position
+        fieldOfView = new FieldOfView(FieldOfView.opacityOf(grid), VIEW_RADIUS);
+        revealAroundPlayer();
+    }
+
+    // Identifies a map by its walls and terrain, so the same map loaded twice shares cached hints
+    private static String layoutIdOf(int[][] map) {
+        StringBuilder id = new StringBuilder(SIZE * SIZE);
+        for (int[] column : map) {
+            for (int cell : column) {
+                id.append(cell == 1 ? '1' : (char) ('0' + Terrain.fromCode(cell).getCode()));
+            }
+        }
+        return id.toString();
+    }
+
+    // 64-bit FNV-1a hash over every cell as 16 hex digits, short enough to store and index per game
+    static String leaderboardIdOf(int[][] map) {
+        long hash = 0xcbf29ce484222325L;
+        for (int[] column : map) {
+            for (int cell : column) {
+                hash ^= cell;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return String.format("%016x", hash);
+    }
+
+    // Marks the cells newly in the player's line of sight as visible and returns them for repainting
+    protected List<Point> revealAroundPlayer() {
+        List<Point> revealed = fieldOfView.reveal(playerPos.x, playerPos.y);
+        for (Point p : revealed) {
+            visibility[p.x][p.y] = Visibility.VISIBLE;
+        }
+        return revealed;
+    }
+
+    // Repaints a single cell instead of the whole board
+    protected void repaintCell(Point p) {
+        gamePanel.repaint(p.x * CELL_SIZE, p.y * CELL_SIZE, CELL_SIZE + 1, CELL_SIZE + 1);
+    }
+
+    // Repaints the rectangle of cells between the two corners, inclusive
+    protected void repaintCells(int minX, int minY, int maxX, int maxY) {
+        gamePanel.repaint(minX * CELL_SIZE, minY * CELL_SIZE,
+                (maxX - minX + 1) * CELL_SIZE + 1, (maxY - minY + 1) * CELL_SIZE + 1);
     }
 
     // Paints the entire game board based on grid and visibility
     protected void drawGrid(Graphics g) {
+        GameEvents.Frame event = new GameEvents.Frame();
+        event.begin();
+        long startNanos = GameMetrics.startTimer();
+
         for (int x = 0; x < SIZE; x++) {
             for (int y = 0; y < SIZE; y++) {
                 int pixelX = x * CELL_SIZE;
@@ -234,7 +426,7 @@ public class TreasureHunt extends JFrame {
                             break;
                         case EMPTY:
                         case PLAYER:
-                            g.setColor(Color.WHITE);
+                            g.setColor(terrain[x][y].getColor());
                             break;
                     }
                     g.fillRect(pixelX, pixelY, CELL_SIZE, CELL_SIZE);
@@ -247,6 +439,19 @@ public class TreasureHunt extends JFrame {
             }
         }
 
+        // Hazards only show up on cells the player has seen
+        if (hazardEngine != null) {
+            HazardWorld world = hazardEngine.getWorld();
+            for (int i = 0; i < world.size(); i++) {
+                int x = world.getX(i);
+                int y = world.getY(i);
+                if (visibility[x][y] == Visibility.VISIBLE) {
+                    g.setColor(world.getKind(i) == HazardWorld.GUARD ? Color.RED : Color.MAGENTA);
+                    g.fillOval(x * CELL_SIZE + 5, y * CELL_SIZE + 5, CELL_SIZE - 10, CELL_SIZE - 10);
+                }
+            }
+        }
+
         // Draw player on top
         int px = playerPos.x * CELL_SIZE;
         int py = playerPos.y * CELL_SIZE;
@@ -254,6 +459,9 @@ public class TreasureHunt extends JFrame {
         g.fillRect(px, py, CELL_SIZE, CELL_SIZE);
         g.setColor(Color.GRAY);
         g.drawRect(px, py, CELL_SIZE, CELL_SIZE);
+
+        GameMetrics.stopTimer(FRAME_LATENCY, startNanos);
+        event.commit();
     }
 
     // Resets all PATH cells back to EMPTY
@@ -262,6 +470,7 @@ public class TreasureHunt extends JFrame {
             for (int j = 0; j < SIZE; j++) {
                 if (grid[i][j] == CellType.PATH) {
                     grid[i][j] = CellType.EMPTY;
+                    repaintCell(new Point(i, j));
                 }
             }
         }
@@ -269,7 +478,17 @@ public class TreasureHunt extends JFrame {
 
     // Uses BFS to give the next step towards the nearest treasure
     protected void showBFSHint() {
-        if (score < 3) {
+        requestHint(HintCache.Algorithm.BFS);
+    }
+
+    // Uses A* for pathfinding
+    protected void showAStarHint() {
+        requestHint(HintCache.Algorithm.A_STAR);
+    }
+
+    // Starts a background hint search, paid for when its first step is shown
+    private void requestHint(HintCache.Algorithm algorithm) {
+        if (score < HINT_COST) {
             JOptionPane.showMessageDialog(this, "Not enough points!");
             return;
         }
@@ -283,7 +502,12 @@ public class TreasureHunt extends JFrame {
         clearPathMarkers();
         repaint();
 
-        List<Point> path = pathFinder.findBFSPath(playerPos, nearestTreasure);
+        hintService.request(algorithm, nearestTreasure);
+    }
+
+    // Marks the next step of a finished hint path, returning whether a step was shown
+    protected boolean applyHint(List<Point> path) {
+        clearPathMarkers();
         if (path != null && path.size() > 1) {
             Point nextStep = path.get(1);
 
@@ -293,44 +517,70 @@ public class TreasureHunt extends JFrame {
 
                 gamePanel.repaint(nextStep.x * CELL_SIZE, nextStep.y * CELL_SIZE,
                         CELL_SIZE, CELL_SIZE);
-
-                score -= 3;
-                updateScore();
+                return true;
             }
         }
+        return false;
     }
 
-    // Uses A* for pathfinding
-    protected void showAStarHint() {
-        if (score < 3) {
-            JOptionPane.showMessageDialog(this, "Not enough points!");
-            return;
-        }
-
-        Point nearestTreasure = findNearestTreasure();
-        if (nearestTreasure == null) {
-            JOptionPane.showMessageDialog(this, "No treasures left!");
-            return;
+    // Shows a provisional step while a slow search is still running, returning whether a step was shown
+    protected boolean showProvisionalHint(Point step) {
+        if (step != null && grid[step.x][step.y] == CellType.EMPTY) {
+            grid[step.x][step.y] = CellType.PATH;
+            visibility[step.x][step.y] = Visibility.VISIBLE;
+            repaintCell(step);
+            return true;
         }
+        return false;
+    }
 
-        clearPathMarkers();
-        repaint();
+    // Takes the price of a hint once its first step is on the board
+    protected void chargeHint() {
+        score -= HINT_COST;
+        updateScore();
+    }
 
-        List<Point> path = pathFinder.findAStarPath(playerPos, nearestTreasure);
-        if (path != null && path.size() > 1) {
-            Point nextStep = path.get(1);
+    // Cancels any hint still being computed, e.g. because the player moved
+    protected void cancelHint() {
+        hintService.cancel();
+    }
 
-            if (grid[nextStep.x][nextStep.y] != CellType.WALL) {
-                grid[nextStep.x][nextStep.y] = CellType.PATH;
-                visibility[nextStep.x][nextStep.y] = Visibility.VISIBLE;
+    // Looks the hint path up in the shared cache, running the search only on a miss.
+    // Runs on the hint worker thread, so it only reads its arguments: a board snapshot and the
+    // id of the map it was taken from. A cancelled search returns null, which is never cached.
+    static List<Point> findHintPath(PathFinder snapshot, String mapId, HintCache.Algorithm algorithm,
+                                    Point start, Point target, BitSet treasures, BooleanSupplier cancelled) {
+        List<Point> path = hintCache.get(mapId, start, treasures, algorithm);
+        if (path == null) {
+            path = algorithm == HintCache.Algorithm.BFS
+                    ? snapshot.findBFSPath(start, target, cancelled)
+                    : snapshot.findWeightedAStarPath(start, target, cancelled);
+            hintCache.put(mapId, start, treasures, algorithm, path);
+        }
+        return path;
+    }
 
-                gamePanel.repaint(nextStep.x * CELL_SIZE, nextStep.y * CELL_SIZE,
-                        CELL_SIZE, CELL_SIZE);
+    // Cached hints for the current treasure set point at a treasure that is about to be collected
+    protected void invalidateHintCache() {
+        hintCache.invalidate(mapId, remainingTreasures());
+    }
 
-                score -= 3;
-                updateScore();
+    // Treasure cells still on the board, one bit per cell
+    protected BitSet remainingTreasures() {
+        BitSet treasures = new BitSet(SIZE * SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (grid[i][j] == CellType.TREASURE) {
+                    treasures.set(i * SIZE + j);
+                }
             }
         }
+        return treasures;
+    }
+
+    // Hit rate and size of the hint cache shared by all games
+    public static HintCache getHintCache() {
+        return hintCache;
     }
 
     // Finds the treasure nearest to the player's current position using Manhattan distance
@@ -366,6 +616,14 @@ public class TreasureHunt extends JFrame {
     }
 
     public static void main(String[] args) {
+        mapSupply.start();
+
+        // Periodically dump metrics when run with -Dtreasurehunt.metrics=true -Dtreasurehunt.metrics.file=<path>
+        String metricsFile = System.getProperty("treasurehunt.metrics.file");
+        if (GameMetrics.ENABLED && metricsFile != null) {
+            GameMetrics.startPeriodicExport(Paths.get(metricsFile),
+                    Long.getLong("treasurehunt.metrics.period", 10));
+        }
         SwingUtilities.invokeLater(() -> new TreasureHunt());
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.treasurehunt;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Benchmarks Dial's bucket-queue search and the weighted A* built on it against a
+ * binary-heap Dijkstra on large random maps with terrain costs.
+ */
+public class WeightedPathBenchmark {
+    private static final int[] MAP_SIZES = {512, 1024, 2048};
+    private static final double WALL_DENSITY = 0.15;
+    private static final int[] TERRAIN_COSTS = {
+            Terrain.PLAIN.getCost(), Terrain.ROAD.getCost(), Terrain.MUD.getCost(), Terrain.WATER.getCost()
+    };
+    private static final int RUNS = 5;
+    // Cost sets for the correctness check; the ones without a cost-1 cell give A* a heuristic weight above 1
+    private static final int[][] CHECK_COSTS = {
+            {1, 3, 5}, {Terrain.MUD.getCost(), Terrain.WATER.getCost()}, {2, 3}, {4, 5}, {3}
+    };
+    private static final int CHECK_GRIDS = 2000;
+    private static final int CHECK_MAX_SIZE = 30;
+
+    public static void main(String[] args) {
+        Random rand = new Random(42);
+        checkAgainstDijkstra(rand);
+        System.out.printf("%8s %14s %14s %14s %12s%n", "size", "heap ms", "Dial ms", "Dial A* ms", "path cost");
+
+        for (int size : MAP_SIZES) {
+            int[] cost = new int[size * size];
+            for (int i = 0; i < cost.length; i++) {
+                cost[i] = rand.nextDouble() < WALL_DENSITY ? 0 : TERRAIN_COSTS[rand.nextInt(TERRAIN_COSTS.length)];
+            }
+            int start = 0;
+            int end = cost.length - 1;
+            cost[start] = 1;
+            cost[end] = 1;
+
+            // Warm up and check that all three agree on the cheapest cost
+            long heapCost = heapDijkstra(cost, size, start, end);
+            long dialCost = pathCost(cost, PathFinder.bucketSearch(cost, size, size, start, end, false, () -> false, new int[1]));
+            long aStarCost = pathCost(cost, PathFinder.bucketSearch(cost, size, size, start, end, true, () -> false, new int[1]));
+            if (heapCost != dialCost || heapCost != aStarCost) {
+                throw new IllegalStateException("Costs differ: " + heapCost + " " + dialCost + " " + aStarCost);
+            }
+
+            long begin = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                heapDijkstra(cost, size, start, end);
+            }
+            double heapMillis = (System.nanoTime() - begin) / 1e6 / RUNS;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                PathFinder.bucketSearch(cost, size, size, start, end, false, () -> false, new int[1]);
+            }
+            double dialMillis = (System.nanoTime() - begin) / 1e6 / RUNS;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                PathFinder.bucketSearch(cost, size, size, start, end, true, () -> false, new int[1]);
+            }
+            double aStarMillis = (System.nanoTime() - begin) / 1e6 / RUNS;
+
+            System.out.printf("%8d %14.2f %14.2f %14.2f %12d%n", size, heapMillis, dialMillis, aStarMillis, heapCost);
+        }
+    }
+
+    /**
+     * Compares both bucket searches with heap Dijkstra on many small random grids, including
+     * grids with no cost-1 cell, where the A* keys jump furthest between buckets.
+     */
+    private static void checkAgainstDijkstra(Random rand) {
+        int checked = 0;
+        for (int[] costs : CHECK_COSTS) {
+            for (int n = 0; n < CHECK_GRIDS; n++) {
+                int width = 2 + rand.nextInt(CHECK_MAX_SIZE - 1);
+                int height = 2 + rand.nextInt(CHECK_MAX_SIZE - 1);
+                int[] cost = new int[width * height];
+                for (int i = 0; i < cost.length; i++) {
+                    cost[i] = rand.nextDouble() < WALL_DENSITY ? 0 : costs[rand.nextInt(costs.length)];
+                }
+                int start = rand.nextInt(cost.length);
+                int end = rand.nextInt(cost.length);
+                if (cost[start] == 0 || cost[end] == 0) {
+                    continue;
+                }
+
+                long heapCost = heapDijkstra(cost, width, start, end);
+                long dialCost = pathCost(cost, PathFinder.bucketSearch(cost, width, height, start, end, false, () -> false, new int[1]));
+                long aStarCost = pathCost(cost, PathFinder.bucketSearch(cost, width, height, start, end, true, () -> false, new int[1]));
+                if (heapCost != dialCost || heapCost != aStarCost) {
+                    throw new IllegalStateException("Costs differ on a " + width + "x" + height + " grid with costs "
+                            + Arrays.toString(costs) + ": " + heapCost + " " + dialCost + " " + aStarCost);
+                }
+                checked++;
+            }
+        }
+        System.out.println("Bucket searches match Dijkstra on " + checked + " random grids");
+    }
+
+    // Baseline: Dijkstra with a binary heap of (distance, cell) packed into longs, -1 if unreachable
+    private static long heapDijkstra(int[] cost, int width, int start, int end) {
+        int height = cost.length / width;
+        long[] dist = new long[cost.length];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        PriorityQueue<Long> heap = new PriorityQueue<>();
+        dist[start] = 0;
+        heap.add((long) start);
+
+        while (!heap.isEmpty()) {
+            long entry = heap.poll();
+            int node = (int) (entry & 0xFFFFFFFFL);
+            long d = entry >>> 32;
+            if (d != dist[node]) {
+                continue;
+            }
+            if (node == end) {
+                return d;
+            }
+            int x = node % width;
+            int y = node / width;
+            int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+            for (int[] dir : directions) {
+                int nx = x + dir[0];
+                int ny = y + dir[1];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                if (cost[neighbor] == 0) {
+                    continue;
+                }
+                long tentative = d + cost[neighbor];
+                if (tentative < dist[neighbor]) {
+                    dist[neighbor] = tentative;
+                    heap.add((tentative << 32) | neighbor);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long pathCost(int[] cost, int[] path) {
+        if (path == null) {
+            return -1;
+        }
+        long total = 0;
+        for (int i = 1; i < path.length; i++) {
+            total += cost[path[i]];
+        }
+        return total;
+    }
+}
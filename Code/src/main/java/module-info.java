@@ -3,6 +3,7 @@ module com.treasurehunt {
     requires javafx.fxml;
     requires com.google.gson;
     requires java.sql;
+    requires jdk.jfr;
     requires org.junit.jupiter.api;
     requires javafx.swing;
     requires org.mockito;